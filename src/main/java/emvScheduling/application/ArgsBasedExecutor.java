@@ -2,7 +2,7 @@ package emvScheduling.application;
 
 import emvScheduling.data.EmvDataGenerator;
 import emvScheduling.domain.ExecutionSettings;
-import emvScheduling.domain.ProblemFacts;
+import emvScheduling.domain.ProblemInstance;
 import emvScheduling.domain.SolverOutput;
 import emvScheduling.solver.CpSolver;
 import org.slf4j.Logger;
@@ -15,20 +15,25 @@ public class ArgsBasedExecutor {
 
     public static void executeUsingArgs(int randomSeed, int numberOfWorkers, int maxSolverExecutionTimeInSeconds
             , int processCount, int processExecutionTimeMin, int processExecutionTimeMax, int computerCount, int conflictPercentage, int timeWeight) throws IOException {
+        if (maxSolverExecutionTimeInSeconds == TimeLimitPredictor.AUTO) {
+            maxSolverExecutionTimeInSeconds = TimeLimitPredictor.fromHistory().predict(numberOfWorkers, processCount,
+                    processExecutionTimeMin, processExecutionTimeMax, computerCount, conflictPercentage, timeWeight);
+        }
         CpSolver solver = new CpSolver();
-        ProblemFacts facts = EmvDataGenerator.getBenchmark(randomSeed, processCount, processExecutionTimeMin,
-                processExecutionTimeMax, computerCount, conflictPercentage, timeWeight);
+        ProblemInstance instance = EmvDataGenerator.getBenchmarkInstance(randomSeed, processCount,
+                processExecutionTimeMin, processExecutionTimeMax, computerCount, conflictPercentage, timeWeight);
 
         ExecutionSettings settings = new ExecutionSettings(numberOfWorkers, maxSolverExecutionTimeInSeconds, randomSeed);
 
         // Solve the problem
-        SolverOutput solverOutput = solver.solve(facts, settings);
+        SolverOutput solverOutput = solver.solve(instance, settings);
         String line = FileBasedExecutor.getOutputLine(0, 0, randomSeed, numberOfWorkers,
                 maxSolverExecutionTimeInSeconds,
                 processCount, processExecutionTimeMin, processExecutionTimeMax, computerCount, conflictPercentage,
                 timeWeight, solverOutput.getSolverWallTime(), solverOutput.getMakespan(),
                 solverOutput.getSolverWallTime() + solverOutput.getMakespan(),
-                solverOutput.getHorizon(), solverOutput.getSolverStatus());
+                solverOutput.getHorizon(), solverOutput.getSolverStatus(),
+                settings.getModelSettingsSummary());
         FileBasedExecutor.writeInAccumulativeOutFileWithTimestamp(line);
         logger.info("Result: " + line);
     }
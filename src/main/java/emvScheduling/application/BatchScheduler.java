@@ -0,0 +1,118 @@
+package emvScheduling.application;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.function.IntFunction;
+
+/**
+ * runs the rows of a batch concurrently while the sum of their numberOfWorkers stays within a core budget. Rows are
+ * started in input order; when the next row does not fit, later rows that fit in the free cores are started before
+ * it. A row that needs more than the whole budget runs alone.
+ * <p>
+ * Results are handed to the sink in input order whatever order the rows finish in, together with the measurement
+ * interference of the row: the highest number of rows, and of their workers, that ran at the same time as it
+ * (itself included).
+ */
+public class BatchScheduler {
+    protected final static transient Logger logger = LoggerFactory.getLogger(BatchScheduler.class);
+
+    private final int coreBudget;
+
+    public interface ResultSink<T> {
+        void accept(int row, T result, int concurrentRows, int concurrentWorkers) throws IOException;
+    }
+
+    /**
+     * @param coreBudget cores shared by the concurrent rows; 0 or less runs the rows one after another
+     */
+    public BatchScheduler(int coreBudget) {
+        this.coreBudget = coreBudget;
+    }
+
+    /**
+     * @param workers numberOfWorkers of each row
+     * @param task    solves the given row
+     * @param sink    receives the results in input order
+     */
+    public <T> void execute(int[] workers, IntFunction<T> task, ResultSink<T> sink) throws IOException {
+        execute(workers, task, null, sink);
+    }
+
+    /**
+     * @param workers        numberOfWorkers of each row
+     * @param task           solves the given row
+     * @param finishListener receives each result as soon as its row finishes, may be null
+     * @param sink           receives the results in input order
+     */
+    public <T> void execute(int[] workers, IntFunction<T> task, ResultSink<T> finishListener, ResultSink<T> sink)
+            throws IOException {
+        int rowCount = workers.length;
+        List<T> results = new ArrayList<>(rowCount);
+        for (int row = 0; row < rowCount; row++) {
+            results.add(null);
+        }
+        boolean[] finished = new boolean[rowCount];
+        int[] concurrentRows = new int[rowCount];
+        int[] concurrentWorkers = new int[rowCount];
+        LinkedList<Integer> pending = new LinkedList<>();
+        for (int row = 0; row < rowCount; row++) {
+            pending.add(row);
+        }
+        List<Integer> running = new ArrayList<>();
+        int runningWorkers = 0;
+        int nextToWrite = 0;
+
+        ExecutorService pool = Executors.newCachedThreadPool();
+        CompletionService<Integer> completion = new ExecutorCompletionService<>(pool);
+        try {
+            while (nextToWrite < rowCount) {
+                for (Iterator<Integer> iterator = pending.iterator(); iterator.hasNext(); ) {
+                    int row = iterator.next();
+                    if (!running.isEmpty() && runningWorkers + workers[row] > coreBudget)
+                        continue;
+                    iterator.remove();
+                    running.add(row);
+                    runningWorkers += workers[row];
+                    for (int other : running) {
+                        concurrentRows[other] = Math.max(concurrentRows[other], running.size());
+                        concurrentWorkers[other] = Math.max(concurrentWorkers[other], runningWorkers);
+                    }
+                    logger.info("Row {} started with {} workers, {} rows running on {} workers", row, workers[row],
+                            running.size(), runningWorkers);
+                    completion.submit(() -> {
+                        results.set(row, task.apply(row));
+                        return row;
+                    });
+                }
+
+                int row = completion.take().get();
+                running.remove((Integer) row);
+                runningWorkers -= workers[row];
+                finished[row] = true;
+                if (finishListener != null) {
+                    finishListener.accept(row, results.get(row), concurrentRows[row], concurrentWorkers[row]);
+                }
+                while (nextToWrite < rowCount && finished[nextToWrite]) {
+                    sink.accept(nextToWrite, results.get(nextToWrite), concurrentRows[nextToWrite],
+                            concurrentWorkers[nextToWrite]);
+                    results.set(nextToWrite, null);
+                    nextToWrite++;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while running the batch", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("A row of the batch failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -2,7 +2,7 @@ package emvScheduling.application;
 
 import emvScheduling.data.EmvDataGenerator;
 import emvScheduling.domain.ExecutionSettings;
-import emvScheduling.domain.ProblemFacts;
+import emvScheduling.domain.ProblemInstance;
 import emvScheduling.domain.SolverOutput;
 import emvScheduling.solver.CpSolver;
 import org.slf4j.Logger;
@@ -12,6 +12,7 @@ import java.io.*;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
@@ -27,61 +28,76 @@ public class FileBasedExecutor {
     private static final String outputHeader = "no, groupNo, randomSeed, numberOfWorkers," +
             "maxSolverExecutionTimeInSeconds, processCount, processExecutionTimeMin, processExecutionTimeMax," +
             "computerCount,conflictPercentage, timeWeight, SolverWallTime,makespan,parallelTimeSum," +
-            "serialTimeHorizon,solverStatus,currentTimestamp";
-
-    public static void executeUsingFiles() {
-        CpSolver solver = new CpSolver();
+            "serialTimeHorizon,solverStatus,settings,currentTimestamp";
+    //rows solved at the same time (see BatchScheduler), only in the output file
+    private static final String interferenceHeader = ",concurrentRows,concurrentWorkers";
+    private static final String previousOutputFile = "output-previous.csv";
+    private static final String resultStoreFile = "result-store.dat";
+    private static final String resultStoreIndexFile = "result-store.idx";
 
+    /**
+     * solves the rows of the input file, skipping the rows whose result is already in the result store, so an
+     * interrupted run resumes where it stopped
+     *
+     * @param coreBudget cores shared by rows solved at the same time, see {@link BatchScheduler}; 0 or less solves the
+     *                   rows one after another
+     * @param force      solves again the rows found in the result store
+     */
+    public static void executeUsingFiles(int coreBudget, boolean force) {
         // Use the updated method to read inputs from "input.csv"
         List<List<Integer>> inputs = readInputsFromCSV(inputFile);
         String outputFilePath = "src/main/resources/" + outputFile;
 
-        List<SolverOutput> outputs = new ArrayList<>();
-
-        String outputLines = "";
-        logger.info("Output:\n\n" + "---------------------------\n" + outputHeader);
+        logger.info("Output:\n\n" + "---------------------------\n" + outputHeader + interferenceHeader);
         Path outputPath = Paths.get(outputFilePath);
-        try {
-            // Delete the file if it exists, then create a new one
+        try (ResultStore store = new ResultStore(Paths.get("src/main/resources/" + resultStoreFile),
+                Paths.get("src/main/resources/" + resultStoreIndexFile))) {
+            String[] fingerprints = new String[inputs.size()];
+            String[] storedLines = new String[inputs.size()];
+            List<Integer> pendingRows = new ArrayList<>();
+            for (int row = 0; row < inputs.size(); row++) {
+                // with the "auto" marker rather than the predicted time limit, which changes as the history grows,
+                // so a restarted run finds the rows it already solved
+                fingerprints[row] = ResultStore.fingerprint(inputs.get(row), getSettings(inputs.get(row)));
+                storedLines[row] = force ? null : store.get(fingerprints[row]);
+                if (storedLines[row] == null) {
+                    pendingRows.add(row);
+                }
+            }
+            logger.info("{} rows to solve, {} rows found in the result store", pendingRows.size(),
+                    inputs.size() - pendingRows.size());
+            List<List<Integer>> pendingInputs = new ArrayList<>();
+            for (int row : pendingRows) {
+                pendingInputs.add(inputs.get(row));
+            }
+            resolveAutoTimeLimits(pendingInputs);
+
+            // the previous output is kept aside, the stored rows are written again in the new one
             if (Files.exists(outputPath)) {
-                Files.delete(outputPath);
+                Files.move(outputPath, Paths.get("src/main/resources/" + previousOutputFile),
+                        StandardCopyOption.REPLACE_EXISTING);
             }
             Files.createFile(outputPath);
             try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(outputPath))) {
-                writer.println(outputHeader);
-                for (List<Integer> input : inputs) {
-                    int i = 2;
-                    int randomSeed = input.get(i++);
-                    int numberOfWorkers = input.get(i++);
-                    int maxSolverExecutionTimeInSeconds = input.get(i++);
-                    ExecutionSettings settings = new ExecutionSettings(numberOfWorkers, maxSolverExecutionTimeInSeconds, randomSeed);
-
-                    ProblemFacts facts = EmvDataGenerator.getBenchmark(randomSeed, input.get(i++), input.get(i++),
-                            input.get(i++), input.get(i++), input.get(i++), input.get(i++));
-                    SolverOutput output = solver.solve(facts, settings);
-                    outputs.add(output);
-
-                    String outputLine = getOutputLine(input.get(0), // No.
-                            input.get(1),// Group id
-                            randomSeed,
-                            numberOfWorkers,
-                            maxSolverExecutionTimeInSeconds,
-                            facts.getProcesses().size(), // processCount
-                            input.get(6), // processExecutionTimeMin
-                            input.get(7), // processExecutionTimeMax
-                            facts.getComputers().size(), // computerCount
-                            input.get(9), // conflictPercentage
-                            input.get(10), // timeWeight
-                            output.getSolverWallTime(),
-                            output.getMakespan(),
-                            output.getSolverWallTime() + output.getMakespan(), // parallel time (sum)
-                            output.getHorizon(),
-                            output.getSolverStatus()); // serial time (horizon));
-                    writer.println(outputLine);
-                    writer.flush();
-                    writeInAccumulativeOutFileWithTimestamp(outputLine);
-                    logger.info(outputLine);
+                writer.println(outputHeader + interferenceHeader);
+                int[] nextRow = {0};
+                int[] workers = new int[pendingRows.size()];
+                for (int k = 0; k < pendingRows.size(); k++) {
+                    workers[k] = inputs.get(pendingRows.get(k)).get(3);
                 }
+                new BatchScheduler(coreBudget).execute(workers, k -> solve(inputs.get(pendingRows.get(k))),
+                        (k, outputLine, concurrentRows, concurrentWorkers) -> store.put(
+                                fingerprints[pendingRows.get(k)],
+                                outputLine + "," + concurrentRows + "," + concurrentWorkers),
+                        (k, outputLine, concurrentRows, concurrentWorkers) -> {
+                            writeStoredLines(writer, storedLines, nextRow, pendingRows.get(k));
+                            writer.println(outputLine + "," + concurrentRows + "," + concurrentWorkers);
+                            writer.flush();
+                            nextRow[0]++;
+                            writeInAccumulativeOutFileWithTimestamp(outputLine);
+                            logger.info(outputLine + "," + concurrentRows + "," + concurrentWorkers);
+                        });
+                writeStoredLines(writer, storedLines, nextRow, inputs.size());
             }
             logger.info("---------------------------");
         } catch (IOException e) {
@@ -89,23 +105,96 @@ public class FileBasedExecutor {
         }
     }
 
+    /**
+     * writes the stored lines of the rows from nextRow[0] to untilRow (exclusive)
+     */
+    private static void writeStoredLines(PrintWriter writer, String[] storedLines, int[] nextRow, int untilRow) {
+        for (; nextRow[0] < untilRow; nextRow[0]++) {
+            writer.println(storedLines[nextRow[0]]);
+            logger.info(storedLines[nextRow[0]] + " (stored)");
+        }
+        writer.flush();
+    }
+
+    /**
+     * replaces the "auto" time limits by the ones predicted from the history (see {@link TimeLimitPredictor}), so the
+     * output lines report the chosen time limit; the predictor is trained once for all the rows
+     */
+    static void resolveAutoTimeLimits(List<List<Integer>> inputs) {
+        TimeLimitPredictor predictor = null;
+        for (List<Integer> input : inputs) {
+            if (input.get(4) != TimeLimitPredictor.AUTO)
+                continue;
+            if (predictor == null) {
+                predictor = TimeLimitPredictor.fromHistory();
+            }
+            input.set(4, predictor.predict(input.get(3), input.get(5), input.get(6), input.get(7), input.get(8),
+                    input.get(9), input.get(10)));
+        }
+    }
+
+    static Path getAccumulativeOutputPath() {
+        return Paths.get("src/main/resources/" + accumulativeOutputFile);
+    }
+
+    private static ExecutionSettings getSettings(List<Integer> input) {
+        return new ExecutionSettings(input.get(3), input.get(4), input.get(2));
+    }
+
+    /**
+     * @param input row of the input file
+     * @return output line of the row
+     */
+    private static String solve(List<Integer> input) {
+        int i = 2;
+        int randomSeed = input.get(i++);
+        int numberOfWorkers = input.get(i++);
+        int maxSolverExecutionTimeInSeconds = input.get(i++);
+        ExecutionSettings settings = getSettings(input);
+
+        ProblemInstance instance = EmvDataGenerator.getBenchmarkInstance(randomSeed, input.get(i++),
+                input.get(i++), input.get(i++), input.get(i++), input.get(i++), input.get(i++));
+        SolverOutput output = new CpSolver().solve(instance, settings);
+
+        return getOutputLine(input.get(0), // No.
+                input.get(1),// Group id
+                randomSeed,
+                numberOfWorkers,
+                maxSolverExecutionTimeInSeconds,
+                instance.getProcessCount(), // processCount
+                input.get(6), // processExecutionTimeMin
+                input.get(7), // processExecutionTimeMax
+                instance.getComputerCount(), // computerCount
+                input.get(9), // conflictPercentage
+                input.get(10), // timeWeight
+                output.getSolverWallTime(),
+                output.getMakespan(),
+                output.getSolverWallTime() + output.getMakespan(), // parallel time (sum)
+                output.getHorizon(), // serial time (horizon)
+                output.getSolverStatus(),
+                settings.getModelSettingsSummary());
+    }
+
     public static String getOutputLine(Integer no, Integer groupId, Integer randomSeed, Integer numberOfWorkers,
                                        Integer maxSolverExecutionTimeInSeconds,
                                        Integer processCount, Integer processExecutionTimeMin,
                                        Integer processExecutionTimeMax, Integer computerCount,
                                        Integer conflictPercentage, Integer timeWeight, Double solverWallTime,
                                        Double makespan, Double parallelTimeSum, Integer serialTimeHorizon,
-                                       String solverStatus) {
-        String line = String.format("%d,%d,%d,%d,%d,%d,%d,%d,%d,%d,%d,%f,%f,%f,%d,%s",
+                                       String solverStatus, String settings) {
+        String line = String.format("%d,%d,%d,%d,%d,%d,%d,%d,%d,%d,%d,%f,%f,%f,%d,%s,%s",
                 no, groupId, randomSeed, numberOfWorkers, maxSolverExecutionTimeInSeconds, processCount,
                 processExecutionTimeMin,
                 processExecutionTimeMax, computerCount, conflictPercentage, timeWeight, solverWallTime,
-                makespan, parallelTimeSum, serialTimeHorizon, solverStatus
+                makespan, parallelTimeSum, serialTimeHorizon, solverStatus, settings
         );
         return line;
     }
 
-    private static List<List<Integer>> readInputsFromCSV(String fileName) {
+    /**
+     * @return the rows of the input file, with {@link TimeLimitPredictor#AUTO} for an "auto" time limit
+     */
+    static List<List<Integer>> readInputsFromCSV(String fileName) {
         List<List<Integer>> inputs = new ArrayList<>();
         try (InputStream inputStream = FileBasedExecutor.class.getClassLoader().getResourceAsStream(fileName);
              BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream))) {
@@ -120,8 +209,9 @@ public class FileBasedExecutor {
             while ((line = reader.readLine()) != null) {
                 List<Integer> inputList = new ArrayList<>();
                 String[] parts = line.trim().split(",");
-                for (String part : parts) {
-                    inputList.add(Integer.parseInt(part));
+                for (int k = 0; k < parts.length; k++) {
+                    // the time limit may be "auto"
+                    inputList.add(k == 4 ? TimeLimitPredictor.parseTimeLimit(parts[k]) : Integer.parseInt(parts[k]));
                 }
                 inputs.add(inputList);
             }
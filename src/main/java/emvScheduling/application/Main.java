@@ -13,13 +13,17 @@ public class Main {
             executeUsingArgs(args);
         else if (args[0].equals("files"))
             executeUsingFiles(args);
+        else if (args[0].equals("redundant-benchmark"))
+            RedundantConstraintsBenchmark.execute();
+        else if (args[0].equals("tune"))
+            executeTuning(args);
         else
-            System.out.println("Two options of 'args' or 'file' are supported");
+            System.out.println("The options of 'args', 'files', 'redundant-benchmark' or 'tune' are supported");
     }
 
     private static void executeUsingArgs(String[] args) throws IOException {
         if (args.length != 10) {
-            System.out.println("Usage: args <randomSeed> <numberOfWorkers> <maxSolverExecutionTimeInSeconds> <processCount> " +
+            System.out.println("Usage: args <randomSeed> <numberOfWorkers> <maxSolverExecutionTimeInSeconds|auto> <processCount> " +
                     "<processExecutionTimeMin> <processExecutionTimeMax> <computerCount> <conflictPercentage> " +
                     "<timeWeight>");
             System.exit(1);
@@ -27,7 +31,7 @@ public class Main {
         Integer i = 1;
         int randomSeed = Integer.parseInt(args[i++]);
         int numberOfWorkers = Integer.parseInt(args[i++]);
-        int maxSolverExecutionTimeInSeconds = Integer.parseInt(args[i++]);
+        int maxSolverExecutionTimeInSeconds = TimeLimitPredictor.parseTimeLimit(args[i++]);
         int processCount = Integer.parseInt(args[i++]);
         int processExecutionTimeMin = Integer.parseInt(args[i++]);
         int processExecutionTimeMax = Integer.parseInt(args[i++]);
@@ -39,11 +43,27 @@ public class Main {
     }
 
     private static void executeUsingFiles(String[] args) {
-        if (args.length != 1) {
-            //todo later include file name or postfix and ...
-            System.out.println("Usage: file");
+        int coreBudget = 0;
+        boolean force = false;
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].equals("--force")) {
+                force = true;
+            } else if (args[i].matches("\\d+")) {
+                coreBudget = Integer.parseInt(args[i]);
+            } else {
+                //todo later include file name or postfix and ...
+                System.out.println("Usage: files [coreBudget] [--force]");
+                System.exit(1);
+            }
+        }
+        FileBasedExecutor.executeUsingFiles(coreBudget, force);
+    }
+
+    private static void executeTuning(String[] args) {
+        if (args.length != 3) {
+            System.out.println("Usage: tune <budgetInSeconds> <profileCount>");
             System.exit(1);
         }
-        FileBasedExecutor.executeUsingFiles();
+        ParameterTuner.execute(Integer.parseInt(args[1]), Integer.parseInt(args[2]));
     }
 }
@@ -0,0 +1,146 @@
+package emvScheduling.application;
+
+import emvScheduling.data.EmvDataGenerator;
+import emvScheduling.domain.ExecutionSettings;
+import emvScheduling.domain.ProblemInstance;
+import emvScheduling.domain.SolverOutput;
+import emvScheduling.solver.CpSolver;
+import emvScheduling.solver.ParameterProfile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.*;
+
+/**
+ * searches the SatParameters space and the booster review round over the rows of the input file, by random sampling
+ * and successive halving: every rung solves the surviving profiles on twice as many rows as the previous one and keeps
+ * the better half, scored by the mean parallelTimeSum. Each solve gets the same fixed time budget.
+ * <p>
+ * The ranked profiles are written to a file that CpSolver loads when -Demv.parameterProfileFile points to it.
+ */
+public class ParameterTuner {
+    protected final static transient Logger logger = LoggerFactory.getLogger(ParameterTuner.class);
+
+    private static final String inputFile = "input.csv";
+    private static final String outputFile = "tuned-profiles.csv";
+
+    // the searched space, as SatParameters text format fragments; an empty fragment keeps the default
+    private static final List<List<String>> SEARCH_SPACE = List.of(
+            List.of("", "search_branching: PORTFOLIO_SEARCH", "search_branching: FIXED_SEARCH"),
+            List.of("", "symmetry_level: 0", "symmetry_level: 2"),
+            List.of("", "use_lns: false"),
+            List.of("", "randomize_search: false"),
+            List.of("", "linearization_level: 0", "linearization_level: 2"),
+            List.of("", "use_precedences_in_disjunctive_constraint: true"));
+    private static final int[] LOOSE_REVIEW_ROUNDS = {0, 10, 33, 66, 100};
+
+    public static void execute(int budgetInSeconds, int profileCount) {
+        List<List<Integer>> inputs = FileBasedExecutor.readInputsFromCSV(inputFile);
+        if (inputs.isEmpty()) {
+            logger.error("No instance to tune on in " + inputFile);
+            return;
+        }
+        // the settings of the command line, with the best profile of emv.parameterProfileFile when it is set
+        ExecutionSettings current = new ExecutionSettings(1, budgetInSeconds, 0);
+        ParameterProfile.applyProfileFile(current);
+        List<ParameterProfile> profiles = sampleProfiles(current, profileCount, new Random(0));
+
+        // scores.get(profile) holds the parallelTimeSum of the rows solved so far, in row order
+        Map<ParameterProfile, List<Double>> scores = new HashMap<>();
+        List<ParameterProfile> survivors = new ArrayList<>(profiles);
+        List<ParameterProfile> eliminated = new ArrayList<>();//best last
+        int rowCount = Math.max(1, inputs.size() >> (int) Math.ceil(Math.log(profiles.size()) / Math.log(2)));
+        while (true) {
+            for (ParameterProfile profile : survivors) {
+                List<Double> profileScores = scores.computeIfAbsent(profile, p -> new ArrayList<>());
+                for (int row = profileScores.size(); row < rowCount; row++) {
+                    profileScores.add(evaluate(profile, inputs.get(row), budgetInSeconds));
+                }
+            }
+            survivors.sort(Comparator.comparingDouble(p -> mean(scores.get(p))));
+            logger.info("Rung on {} rows: best {} with {}", rowCount, survivors.get(0),
+                    mean(scores.get(survivors.get(0))));
+            if (survivors.size() == 1 || rowCount == inputs.size() && survivors.size() <= 2)
+                break;
+            List<ParameterProfile> dropped = survivors.subList((survivors.size() + 1) / 2, survivors.size());
+            List<ParameterProfile> droppedWorstFirst = new ArrayList<>(dropped);
+            Collections.reverse(droppedWorstFirst);
+            eliminated.addAll(droppedWorstFirst);
+            dropped.clear();
+            rowCount = Math.min(inputs.size(), rowCount * 2);
+        }
+
+        List<ParameterProfile> ranked = new ArrayList<>(survivors);
+        for (int i = eliminated.size() - 1; i >= 0; i--) {
+            ranked.add(eliminated.get(i));
+        }
+        List<Double> rankedScores = new ArrayList<>();
+        for (ParameterProfile profile : ranked) {
+            rankedScores.add(mean(scores.get(profile)));
+        }
+        try {
+            ParameterProfile.writeRanked(Paths.get("src/main/resources/" + outputFile), ranked, rankedScores);
+            logger.info("Ranked profiles written in " + outputFile + ", best: " + ranked.get(0));
+        } catch (IOException e) {
+            logger.error("Error writing " + outputFile, e);
+        }
+    }
+
+    /**
+     * @return the parameters of the current settings first, then distinct random points of the search space
+     */
+    private static List<ParameterProfile> sampleProfiles(ExecutionSettings current, int profileCount, Random random) {
+        List<ParameterProfile> profiles = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        String currentSatParameters = current.getSatParameters() == null ? "" : current.getSatParameters();
+        profiles.add(new ParameterProfile("p0", currentSatParameters, current.getBoosterLooseReviewRound()));
+        seen.add(currentSatParameters + "|" + current.getBoosterLooseReviewRound());
+        long spaceSize = LOOSE_REVIEW_ROUNDS.length;
+        for (List<String> values : SEARCH_SPACE) {
+            spaceSize *= values.size();
+        }
+        while (profiles.size() < Math.min(profileCount, spaceSize)) {
+            StringBuilder satParameters = new StringBuilder();
+            for (List<String> values : SEARCH_SPACE) {
+                String value = values.get(random.nextInt(values.size()));
+                if (!value.isEmpty()) {
+                    satParameters.append(satParameters.length() == 0 ? "" : " ").append(value);
+                }
+            }
+            int looseReviewRound = LOOSE_REVIEW_ROUNDS[random.nextInt(LOOSE_REVIEW_ROUNDS.length)];
+            if (seen.add(satParameters + "|" + looseReviewRound)) {
+                profiles.add(new ParameterProfile("p" + profiles.size(), satParameters.toString(), looseReviewRound));
+            }
+        }
+        return profiles;
+    }
+
+    private static double evaluate(ParameterProfile profile, List<Integer> input, int budgetInSeconds) {
+        int i = 2;
+        int randomSeed = input.get(i++);
+        int numberOfWorkers = input.get(i++);
+        i++;// the row time limit is replaced by the tuning budget
+        ExecutionSettings settings = new ExecutionSettings(numberOfWorkers, budgetInSeconds, randomSeed);
+        settings.setParameterProfileFile(null);
+        settings.setSatParameters(profile.getSatParameters());
+        settings.setBoosterLooseReviewRound(profile.getBoosterLooseReviewRound());
+        // the booster portfolio would run the other review rounds too
+        settings.setBoosterTimeBudgetInMillis(0);
+        ProblemInstance instance = EmvDataGenerator.getBenchmarkInstance(randomSeed, input.get(i++), input.get(i++),
+                input.get(i++), input.get(i++), input.get(i++), input.get(i++));
+        SolverOutput output = new CpSolver().solve(instance, settings);
+        double parallelTimeSum = output.getSolverWallTime() + output.getMakespan();
+        logger.trace("{} on row {}: {}", profile, input.get(0), parallelTimeSum);
+        return parallelTimeSum;
+    }
+
+    private static double mean(List<Double> values) {
+        double sum = 0;
+        for (double value : values) {
+            sum += value;
+        }
+        return sum / values.size();
+    }
+}
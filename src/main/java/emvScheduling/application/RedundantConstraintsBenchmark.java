@@ -0,0 +1,90 @@
+package emvScheduling.application;
+
+import emvScheduling.data.EmvDataGenerator;
+import emvScheduling.domain.ExecutionSettings;
+import emvScheduling.domain.ProblemInstance;
+import emvScheduling.domain.SolverOutput;
+import emvScheduling.solver.CpSolver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * solves every row of the input file with and without the redundant constraints and reports how they change the time
+ * to the first bound improvement, the final bound and the makespan.
+ * <p>
+ * Both runs use the joint CP_SAT model without fast paths or peeling, which would solve the row without it. A row
+ * whose booster schedule already meets the lower bound still skips the model; it is reported with compared false.
+ * Neither run is warm-started by the other (solution memory, checkpoint) or stopped by stagnation, and the order of
+ * the two runs alternates from row to row, so JIT warm-up does not always favour the same one.
+ */
+public class RedundantConstraintsBenchmark {
+    protected final static transient Logger logger = LoggerFactory.getLogger(RedundantConstraintsBenchmark.class);
+
+    private static final String inputFile = "input.csv";
+    private static final String outputFile = "redundant-benchmark.csv";
+    private static final String outputHeader = "no, groupNo, randomSeed, numberOfWorkers," +
+            "maxSolverExecutionTimeInSeconds, processCount, processExecutionTimeMin, processExecutionTimeMax," +
+            "computerCount,conflictPercentage, timeWeight, compared,firstBoundImprovementTime,bestObjectiveBound," +
+            "makespan,SolverWallTime,solverStatus,stopReason,firstBoundImprovementTimeRedundant," +
+            "bestObjectiveBoundRedundant,makespanRedundant,SolverWallTimeRedundant,solverStatusRedundant," +
+            "stopReasonRedundant";
+
+    public static void execute() {
+        CpSolver solver = new CpSolver();
+        List<List<Integer>> inputs = FileBasedExecutor.readInputsFromCSV(inputFile);
+        FileBasedExecutor.resolveAutoTimeLimits(inputs);
+        Path outputPath = Paths.get("src/main/resources/" + outputFile);
+        logger.info("Output:\n\n" + "---------------------------\n" + outputHeader);
+        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(outputPath))) {
+            writer.println(outputHeader);
+            for (int row = 0; row < inputs.size(); row++) {
+                List<Integer> input = inputs.get(row);
+                String outputLine = input.get(0) + "," + input.get(1);
+                for (int i = 2; i < 11; i++) {
+                    outputLine += "," + input.get(i);
+                }
+                String[] runs = new String[2];//without, then with the redundant constraints
+                boolean compared = true;
+                for (int run = 0; run < 2; run++) {
+                    boolean redundantConstraints = (run + row) % 2 == 1;
+                    int i = 2;
+                    int randomSeed = input.get(i++);
+                    ExecutionSettings settings = new ExecutionSettings(input.get(i++), input.get(i++), randomSeed);
+                    settings.setRedundantConstraints(redundantConstraints);
+                    // the rows must reach the model for the constraints to matter
+                    settings.setEngine(ExecutionSettings.Engine.CP_SAT);
+                    settings.setFastPaths(false);
+                    settings.setConflictFreePeeling(false);
+                    // each run starts from the booster schedule and stops at its time limit or on optimality
+                    settings.setSolutionMemoryDir(null);
+                    settings.setCheckpointFile(null);
+                    settings.setRestartFromCheckpoint(false);
+                    settings.setStagnationStop(false);
+                    ProblemInstance instance = EmvDataGenerator.getBenchmarkInstance(randomSeed, input.get(i++),
+                            input.get(i++), input.get(i++), input.get(i++), input.get(i++), input.get(i++));
+                    SolverOutput output = solver.solve(instance, settings);
+                    // without a model, the known schedule was returned and nothing was compared
+                    compared &= output.getModelBuildTime() != null;
+                    runs[redundantConstraints ? 1 : 0] = String.format(",%s,%s,%f,%f,%s,%s",
+                            output.getFirstBoundImprovementTime(), output.getBestObjectiveBound(),
+                            output.getMakespan(), output.getSolverWallTime(), output.getSolverStatus(),
+                            output.getStopReason());
+                }
+                outputLine += "," + compared + runs[0] + runs[1];
+                writer.println(outputLine);
+                writer.flush();
+                logger.info(outputLine);
+            }
+            logger.info("---------------------------");
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package emvScheduling.application;
+
+import emvScheduling.data.EmvDataGenerator;
+import emvScheduling.domain.ExecutionSettings;
+import emvScheduling.solver.CpSolver;
+import emvScheduling.solver.ParameterProfile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * persistent results of the batch rows, keyed by a fingerprint of everything that determines the result: the
+ * generator parameters and seed of the row, the solver settings and the code, i.e. a hash of the compiled classes
+ * and RESULT_VERSION.
+ * <p>
+ * The records are appended to a data file as "fingerprint TAB result" lines, and their byte offsets to an index file
+ * that is loaded at start, so a lookup is one map access and one seek whatever the size of the history. Records of
+ * the data file missing from the index (a crash between the two writes) are indexed again at start, and a record cut
+ * by a crash is dropped. A later record of the same fingerprint replaces the former.
+ */
+public class ResultStore implements Closeable {
+    protected final static transient Logger logger = LoggerFactory.getLogger(ResultStore.class);
+
+    //to increase whenever the results of the same settings change without a change of the compiled classes (e.g. a
+    //dependency or a resource); code changes are caught by the hash of the classes
+    public static final int RESULT_VERSION = 2;
+
+    private static String codeIdentity;
+
+    private final Map<String, Long> index = new HashMap<>();
+    private final RandomAccessFile data;
+    private final Writer indexWriter;
+
+    public ResultStore(Path dataFile, Path indexFile) throws IOException {
+        if (Files.exists(indexFile)) {
+            try (BufferedReader reader = Files.newBufferedReader(indexFile, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    int comma = line.lastIndexOf(',');
+                    if (comma > 0) {
+                        index.put(line.substring(0, comma), Long.parseLong(line.substring(comma + 1)));
+                    }
+                }
+            }
+        }
+        data = new RandomAccessFile(dataFile.toFile(), "rw");
+        indexWriter = Files.newBufferedWriter(indexFile, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                StandardOpenOption.APPEND);
+        recover();
+        logger.info("Result store {}: {} results", dataFile, index.size());
+    }
+
+    /**
+     * indexes the records appended after the last indexed one, and drops a last record cut by a crash
+     */
+    private void recover() throws IOException {
+        long position = 0;
+        for (long offset : index.values()) {
+            position = Math.max(position, offset);
+        }
+        if (position >= data.length()) {
+            position = 0;
+        }
+        data.seek(position);
+        if (position > 0) {
+            // skip the last indexed record
+            readRecord();
+        }
+        long recordStart = data.getFilePointer();
+        String record;
+        while ((record = readRecord()) != null) {
+            int tab = record.indexOf('\t');
+            if (tab > 0 && !Objects.equals(index.get(record.substring(0, tab)), recordStart)) {
+                addToIndex(record.substring(0, tab), recordStart);
+            }
+            recordStart = data.getFilePointer();
+        }
+        if (recordStart < data.length()) {
+            logger.warn("Dropping a result cut at byte {} of the result store", recordStart);
+            data.setLength(recordStart);
+        }
+        indexWriter.flush();
+    }
+
+    /**
+     * @return the next complete line, without its line break, or null at the end of the file or of the last complete
+     * line; the file pointer is left after the line only when it is complete
+     */
+    private String readRecord() throws IOException {
+        long start = data.getFilePointer();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[512];
+        int read;
+        while ((read = data.read(buffer)) > 0) {
+            for (int k = 0; k < read; k++) {
+                if (buffer[k] == '\n') {
+                    bytes.write(buffer, 0, k);
+                    data.seek(start + bytes.size() + 1);
+                    return bytes.toString(StandardCharsets.UTF_8);
+                }
+            }
+            bytes.write(buffer, 0, read);
+        }
+        data.seek(start);
+        return null;
+    }
+
+    private void addToIndex(String fingerprint, long offset) throws IOException {
+        index.put(fingerprint, offset);
+        indexWriter.write(fingerprint + "," + offset + "\n");
+    }
+
+    public synchronized String get(String fingerprint) throws IOException {
+        Long offset = index.get(fingerprint);
+        if (offset == null)
+            return null;
+        data.seek(offset);
+        String record = readRecord();
+        return record == null ? null : record.substring(record.indexOf('\t') + 1);
+    }
+
+    public synchronized void put(String fingerprint, String result) throws IOException {
+        long offset = data.length();
+        data.seek(offset);
+        data.write((fingerprint + "\t" + result + "\n").getBytes(StandardCharsets.UTF_8));
+        data.getFD().sync();
+        addToIndex(fingerprint, offset);
+        indexWriter.flush();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        indexWriter.close();
+        data.close();
+    }
+
+    /**
+     * @param input    row of the input file; no and groupNo are not part of the fingerprint
+     * @param settings settings the row is solved with
+     * @return SHA-256 of the generator parameters, the seed, every field of the settings (so new settings are
+     * included without changing this method), the conflict generator version and the code version
+     */
+    public static String fingerprint(List<Integer> input, ExecutionSettings settings) {
+        // the profile file is resolved on a copy, as the solver does, leaving the settings of the caller unchanged
+        settings = settings.copy();
+        ParameterProfile.applyProfileFile(settings);
+        StringBuilder key = new StringBuilder();
+        key.append("input=").append(input.subList(2, input.size()));
+        List<Field> fields = new ArrayList<>(Arrays.asList(ExecutionSettings.class.getDeclaredFields()));
+        fields.sort(Comparator.comparing(Field::getName));
+        for (Field field : fields) {
+            if (Modifier.isStatic(field.getModifiers()))
+                continue;
+            field.setAccessible(true);
+            try {
+                key.append(';').append(field.getName()).append('=').append(field.get(settings));
+            } catch (IllegalAccessException e) {
+                throw new RuntimeException("Cannot read setting " + field.getName(), e);
+            }
+        }
+        key.append(";conflictGeneratorVersion=").append(EmvDataGenerator.getConflictGeneratorVersion());
+        key.append(";resultVersion=").append(RESULT_VERSION);
+        key.append(";code=").append(getCodeIdentity());
+        try {
+            return hex(MessageDigest.getInstance("SHA-256").digest(key.toString().getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * @return SHA-256 of the compiled classes of the project (the class files of target/classes under mvn exec:java,
+     * or the jar), computed once; "unknown" if they cannot be read
+     */
+    static synchronized String getCodeIdentity() {
+        if (codeIdentity == null) {
+            try {
+                Path location = Paths.get(CpSolver.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+                boolean directory = Files.isDirectory(location);
+                List<Path> files;
+                try (Stream<Path> walk = Files.walk(location)) {
+                    files = walk.filter(Files::isRegularFile)
+                            .filter(file -> !directory || file.toString().endsWith(".class"))
+                            .sorted()
+                            .collect(Collectors.toList());
+                }
+                MessageDigest digest = MessageDigest.getInstance("SHA-256");
+                for (Path file : files) {
+                    digest.update(location.relativize(file).toString().getBytes(StandardCharsets.UTF_8));
+                    digest.update(Files.readAllBytes(file));
+                }
+                codeIdentity = hex(digest.digest());
+                logger.info("Code identity {} from {} files of {}", codeIdentity, files.size(), location);
+            } catch (IOException | URISyntaxException | NoSuchAlgorithmException | RuntimeException e) {
+                logger.warn("Cannot read the compiled classes, results are told apart by RESULT_VERSION only", e);
+                codeIdentity = "unknown";
+            }
+        }
+        return codeIdentity;
+    }
+
+    private static String hex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder();
+        for (byte b : bytes) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+}
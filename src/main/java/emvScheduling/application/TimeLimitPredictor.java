@@ -0,0 +1,264 @@
+package emvScheduling.application;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * chooses the maxSolverExecutionTimeInSeconds of an instance from the history of runs in output-accumulative.csv:
+ * <ul>
+ *     <li>two gradient-boosted ensembles of regression trees (squared loss, so they estimate the mean) predict the
+ *     solver wall time and the makespan from numberOfWorkers, the time limit and the instance parameters. A run
+ *     without a schedule (UNKNOWN, INFEASIBLE, ...) counts as if its processes ran one after another, i.e. its
+ *     makespan is serialTimeHorizon</li>
+ *     <li>the predicted parallelTimeSum of a time limit is the predicted wall time, capped by the time limit, plus
+ *     the predicted makespan; the cap keeps the instances that happened to be run with long time limits from
+ *     making those limits look slow</li>
+ *     <li>the candidates are the time limits found in at least MIN_LEAF_SIZE runs of the history, since trees do not
+ *     extrapolate; the one with the lowest predicted parallelTimeSum is chosen, or the shortest one predicted within
+ *     TIE_TOLERANCE of it</li>
+ * </ul>
+ */
+public class TimeLimitPredictor {
+    protected final static transient Logger logger = LoggerFactory.getLogger(TimeLimitPredictor.class);
+
+    public static final int AUTO = -1;//time limit given as "auto"
+    private static final int DEFAULT_TIME_LIMIT_IN_SECONDS = 20;//without enough history
+    private static final int MIN_HISTORY_SIZE = 10;
+    private static final int TREE_COUNT = 200;
+    private static final double LEARNING_RATE = 0.1;
+    private static final int MAX_DEPTH = 3;
+    private static final int MIN_LEAF_SIZE = 3;
+    private static final double TIE_TOLERANCE = 0.05;//relative, below the accuracy of the trees
+    // numberOfWorkers, timeLimit, processCount, processExecutionTimeMin, processExecutionTimeMax, computerCount,
+    // conflictPercentage, timeWeight
+    private static final int FEATURE_COUNT = 8;
+    private static final int TIME_LIMIT_FEATURE = 1;
+
+    private final int[] candidates;
+    private final Ensemble wallTime;
+    private final Ensemble makespan;
+
+    /**
+     * a split on feature < threshold, or a leaf when feature is -1
+     */
+    private static class Node {
+        private int feature = -1;
+        private double threshold;
+        private Node left;
+        private Node right;
+        private double value;
+
+        double predict(double[] features) {
+            Node node = this;
+            while (node.feature >= 0) {
+                node = features[node.feature] < node.threshold ? node.left : node.right;
+            }
+            return node.value;
+        }
+    }
+
+    /**
+     * the mean target plus the scaled sum of the trees fitted to the residuals
+     */
+    private static class Ensemble {
+        private double base;
+        private final List<Node> trees = new ArrayList<>(TREE_COUNT);
+
+        double predict(double[] features) {
+            double prediction = base;
+            for (Node tree : trees) {
+                prediction += LEARNING_RATE * tree.predict(features);
+            }
+            return prediction;
+        }
+    }
+
+    private TimeLimitPredictor(int[] candidates, Ensemble wallTime, Ensemble makespan) {
+        this.candidates = candidates;
+        this.wallTime = wallTime;
+        this.makespan = makespan;
+    }
+
+    /**
+     * @param value time limit in seconds, or "auto"
+     * @return the time limit, or {@link #AUTO}
+     */
+    public static int parseTimeLimit(String value) {
+        return value.trim().equalsIgnoreCase("auto") ? AUTO : Integer.parseInt(value.trim());
+    }
+
+    /**
+     * @return the predictor trained on output-accumulative.csv
+     */
+    public static TimeLimitPredictor fromHistory() {
+        return fromHistory(FileBasedExecutor.getAccumulativeOutputPath());
+    }
+
+    /**
+     * @param file output lines, with the header
+     * @return the predictor trained on the lines of the file; with fewer than MIN_HISTORY_SIZE of them, it always
+     * predicts DEFAULT_TIME_LIMIT_IN_SECONDS
+     */
+    public static TimeLimitPredictor fromHistory(Path file) {
+        List<double[]> features = new ArrayList<>();
+        List<Double> wallTimes = new ArrayList<>();
+        List<Double> makespans = new ArrayList<>();
+        if (Files.exists(file)) {
+            try {
+                List<String> lines = Files.readAllLines(file);
+                for (int k = 1; k < lines.size(); k++) {
+                    String[] parts = lines.get(k).split(",");
+                    if (parts.length < 16)
+                        continue;
+                    try {
+                        double[] row = new double[FEATURE_COUNT];
+                        for (int f = 0; f < FEATURE_COUNT; f++) {
+                            row[f] = Double.parseDouble(parts[3 + f].trim());
+                        }
+                        double wallTime = Double.parseDouble(parts[11].trim());
+                        String status = parts[15].trim();
+                        double makespan = status.equals("OPTIMAL") || status.equals("FEASIBLE")
+                                ? Double.parseDouble(parts[12].trim()) : Double.parseDouble(parts[14].trim());
+                        if (row[TIME_LIMIT_FEATURE] > 0) {
+                            features.add(row);
+                            wallTimes.add(wallTime);
+                            makespans.add(makespan);
+                        }
+                    } catch (NumberFormatException e) {
+                        logger.trace("History line {} skipped: {}", k, lines.get(k));
+                    }
+                }
+            } catch (IOException e) {
+                logger.error("Error reading the history " + file, e);
+            }
+        }
+        if (features.size() < MIN_HISTORY_SIZE) {
+            logger.warn("{} runs in the history of {}, the time limit is {} s", features.size(), file,
+                    DEFAULT_TIME_LIMIT_IN_SECONDS);
+            return new TimeLimitPredictor(new int[]{DEFAULT_TIME_LIMIT_IN_SECONDS}, null, null);
+        }
+        double[][] rows = features.toArray(new double[0][]);
+        // a time limit seen in fewer runs than a leaf holds has no prediction of its own
+        Map<Integer, Integer> runCounts = new TreeMap<>();
+        for (double[] row : rows) {
+            runCounts.merge((int) row[TIME_LIMIT_FEATURE], 1, Integer::sum);
+        }
+        int[] candidates = runCounts.entrySet().stream().filter(entry -> entry.getValue() >= MIN_LEAF_SIZE)
+                .mapToInt(Map.Entry::getKey).toArray();
+        if (candidates.length == 0) {
+            candidates = new int[]{DEFAULT_TIME_LIMIT_IN_SECONDS};
+        }
+        logger.info("Time limit predictor trained on {} runs, candidate time limits {}", rows.length,
+                Arrays.toString(candidates));
+        return new TimeLimitPredictor(candidates,
+                train(rows, wallTimes.stream().mapToDouble(Double::doubleValue).toArray()),
+                train(rows, makespans.stream().mapToDouble(Double::doubleValue).toArray()));
+    }
+
+    private static Ensemble train(double[][] features, double[] targets) {
+        int rowCount = targets.length;
+        Ensemble ensemble = new Ensemble();
+        ensemble.base = Arrays.stream(targets).average().orElse(0);
+        double[] residuals = new double[rowCount];
+        for (int r = 0; r < rowCount; r++) {
+            residuals[r] = targets[r] - ensemble.base;
+        }
+        int[] rows = new int[rowCount];
+        for (int r = 0; r < rowCount; r++) {
+            rows[r] = r;
+        }
+        for (int t = 0; t < TREE_COUNT; t++) {
+            Node tree = fit(features, residuals, rows, 0);
+            ensemble.trees.add(tree);
+            for (int r = 0; r < rowCount; r++) {
+                residuals[r] -= LEARNING_RATE * tree.predict(features[r]);
+            }
+        }
+        return ensemble;
+    }
+
+    /**
+     * @return the regression tree of the residuals of the given rows, splitting where the squared error drops most
+     */
+    private static Node fit(double[][] features, double[] residuals, int[] rows, int depth) {
+        Node node = new Node();
+        double total = 0;
+        for (int r : rows) {
+            total += residuals[r];
+        }
+        node.value = total / rows.length;
+        if (depth == MAX_DEPTH || rows.length < 2 * MIN_LEAF_SIZE)
+            return node;
+
+        double bestGain = 1e-9;
+        Integer[] sorted = new Integer[rows.length];
+        for (int f = 0; f < FEATURE_COUNT; f++) {
+            for (int k = 0; k < rows.length; k++) {
+                sorted[k] = rows[k];
+            }
+            int feature = f;
+            Arrays.sort(sorted, Comparator.comparingDouble(r -> features[r][feature]));
+            double leftSum = 0;
+            for (int k = 1; k < rows.length; k++) {
+                leftSum += residuals[sorted[k - 1]];
+                if (k < MIN_LEAF_SIZE || rows.length - k < MIN_LEAF_SIZE
+                        || features[sorted[k - 1]][f] == features[sorted[k]][f])
+                    continue;
+                double rightSum = total - leftSum;
+                // reduction of the squared error by the split
+                double gain = leftSum * leftSum / k + rightSum * rightSum / (rows.length - k)
+                        - total * total / rows.length;
+                if (gain > bestGain) {
+                    bestGain = gain;
+                    node.feature = f;
+                    node.threshold = (features[sorted[k - 1]][f] + features[sorted[k]][f]) / 2;
+                }
+            }
+        }
+        if (node.feature < 0)
+            return node;
+        int[] left = Arrays.stream(rows).filter(r -> features[r][node.feature] < node.threshold).toArray();
+        int[] right = Arrays.stream(rows).filter(r -> features[r][node.feature] >= node.threshold).toArray();
+        node.left = fit(features, residuals, left, depth + 1);
+        node.right = fit(features, residuals, right, depth + 1);
+        return node;
+    }
+
+    /**
+     * @return the predicted parallelTimeSum
+     */
+    double predictParallelTimeSum(double[] features) {
+        double solverTime = Math.max(0, Math.min(features[TIME_LIMIT_FEATURE], wallTime.predict(features)));
+        return solverTime + Math.max(0, makespan.predict(features));
+    }
+
+    /**
+     * @return the shortest candidate time limit predicted within TIE_TOLERANCE of the lowest parallelTimeSum
+     */
+    public int predict(int numberOfWorkers, int processCount, int processExecutionTimeMin,
+                       int processExecutionTimeMax, int computerCount, int conflictPercentage, int timeWeight) {
+        if (candidates.length == 1)
+            return candidates[0];
+        double[] features = {numberOfWorkers, 0, processCount, processExecutionTimeMin, processExecutionTimeMax,
+                computerCount, conflictPercentage, timeWeight};
+        double[] predictions = new double[candidates.length];
+        double lowest = Double.MAX_VALUE;
+        for (int k = 0; k < candidates.length; k++) {
+            features[TIME_LIMIT_FEATURE] = candidates[k];
+            predictions[k] = predictParallelTimeSum(features);
+            logger.trace("Time limit {} s: predicted parallelTimeSum {}", candidates[k], predictions[k]);
+            lowest = Math.min(lowest, predictions[k]);
+        }
+        int best = 0;
+        while (predictions[best] > lowest * (1 + TIE_TOLERANCE)) {
+            best++;
+        }
+        logger.info("Time limit {} s chosen, predicted parallelTimeSum {}", candidates[best], predictions[best]);
+        return candidates[best];
+    }
+}
@@ -0,0 +1,181 @@
+package emvScheduling.data;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * generates the conflicting pairs of a benchmark as packed long keys, (min << 32) | max, so no pair object or string
+ * is allocated. The keys are returned in increasing order, i.e. the pairs sorted by first then second process.
+ * <ul>
+ *     <li>version 1: rejection sampling of random (a, b) draws, the same draws and so the same pairs as the original
+ *     generator for a given seed. It slows down as conflictPercentage approaches 100.</li>
+ *     <li>version 2: sampling of distinct indices over the n(n-1)/2 pair space, or of the pairs to leave out when
+ *     more than half of them are requested, decoded to pairs in increasing order. Its cost hardly depends on the
+ *     percentage, but it generates other pairs than version 1.</li>
+ * </ul>
+ */
+public class ConflictPairGenerator {
+    public static final int LATEST_VERSION = 2;
+
+    public static long pack(int process1, int process2) {
+        return ((long) Math.min(process1, process2) << 32) | Math.max(process1, process2);
+    }
+
+    public static int first(long key) {
+        return (int) (key >>> 32);
+    }
+
+    public static int second(long key) {
+        return (int) key;
+    }
+
+    public static long requiredConflicts(int processCount, int conflictPercentage) {
+        long totalPairs = (long) processCount * (processCount - 1) / 2;
+        return totalPairs * conflictPercentage / 100;
+    }
+
+    /**
+     * @param version            1 or 2, see the class comment
+     * @param randomSeed
+     * @param processCount
+     * @param conflictPercentage
+     * @return packed keys of the conflicting pairs, in increasing order
+     */
+    public static long[] generate(int version, int randomSeed, int processCount, int conflictPercentage) {
+        long required = requiredConflicts(processCount, conflictPercentage);
+        if (required > Integer.MAX_VALUE - 8)
+            throw new RuntimeException("Too many conflicting pairs to generate: " + required);
+        switch (version) {
+            case 1:
+                return rejectionSampling(randomSeed, processCount, (int) required);
+            case 2:
+                return indexSampling(randomSeed, processCount, (int) required);
+            default:
+                throw new RuntimeException("Unknown conflict generator version: " + version);
+        }
+    }
+
+    private static long[] rejectionSampling(int randomSeed, int processCount, int required) {
+        Random random = new Random(randomSeed);
+        long[] keys = new long[required];
+        LongHashSet uniquePairs = new LongHashSet(required);
+        int count = 0;
+        while (count < required) {
+            int processA = random.nextInt(processCount);
+            int processB = random.nextInt(processCount);
+
+            // Ensure processA and processB are different, the packed key orders the pair consistently
+            if (processA != processB && uniquePairs.add(pack(processA, processB))) {
+                keys[count++] = pack(processA, processB);
+            }
+        }
+        Arrays.sort(keys);
+        return keys;
+    }
+
+    private static long[] indexSampling(int randomSeed, int processCount, int required) {
+        Random random = new Random(randomSeed);
+        long totalPairs = (long) processCount * (processCount - 1) / 2;
+        long[] keys = new long[required];
+        if (required <= totalPairs - required) {
+            long[] indices = sortedSample(random, totalPairs, required);
+            PairIndexDecoder decoder = new PairIndexDecoder(processCount);
+            for (int k = 0; k < required; k++) {
+                keys[k] = decoder.decode(indices[k]);
+            }
+        } else {
+            // dense: sample the pairs to leave out and emit all the others
+            long[] excluded = sortedSample(random, totalPairs, (int) (totalPairs - required));
+            PairIndexDecoder decoder = new PairIndexDecoder(processCount);
+            int count = 0;
+            int next = 0;
+            for (long index = 0; index < totalPairs; index++) {
+                if (next < excluded.length && excluded[next] == index) {
+                    next++;
+                } else {
+                    keys[count++] = decoder.decode(index);
+                }
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * sampleSize distinct values of [0, populationSize) in increasing order, each subset equally likely: draws the
+     * missing values with replacement, then sorts and drops the duplicates until none is missing. Cheaper than a hash
+     * set for the sizes involved, and the values come out sorted.
+     */
+    private static long[] sortedSample(Random random, long populationSize, int sampleSize) {
+        long[] sample = new long[sampleSize];
+        int count = 0;
+        while (count < sampleSize) {
+            for (int k = count; k < sampleSize; k++) {
+                sample[k] = random.nextLong(populationSize);
+            }
+            Arrays.parallelSort(sample);
+            count = 0;
+            for (int k = 0; k < sampleSize; k++) {
+                if (count == 0 || sample[k] != sample[count - 1]) {
+                    sample[count++] = sample[k];
+                }
+            }
+        }
+        return sample;
+    }
+
+    /**
+     * maps pair indices given in increasing order to packed keys; row i holds the pairs (i, i+1) .. (i, n-1)
+     */
+    private static class PairIndexDecoder {
+        private final int processCount;
+        private int row = 0;
+        private long rowStart = 0;
+
+        PairIndexDecoder(int processCount) {
+            this.processCount = processCount;
+        }
+
+        long decode(long index) {
+            while (index >= rowStart + processCount - 1 - row) {
+                rowStart += processCount - 1 - row;
+                row++;
+            }
+            return pack(row, (int) (row + 1 + index - rowStart));
+        }
+    }
+
+    /**
+     * open addressing set of non-negative longs, without boxing
+     */
+    private static class LongHashSet {
+        private final long[] slots;//key + 1, 0 is empty
+        private final int mask;
+
+        LongHashSet(int expectedSize) {
+            long capacity = Long.highestOneBit(Math.max(2L, expectedSize) * 2 - 1) << 1;
+            if (capacity > 1 << 30)
+                throw new RuntimeException("Too many pairs to sample: " + expectedSize);
+            slots = new long[(int) capacity];
+            mask = (int) capacity - 1;
+        }
+
+        /**
+         * @return true if the key was not in the set
+         */
+        boolean add(long key) {
+            int slot = (int) mix(key) & mask;
+            while (slots[slot] != 0) {
+                if (slots[slot] == key + 1)
+                    return false;
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = key + 1;
+            return true;
+        }
+
+        private static long mix(long key) {
+            key *= 0x9E3779B97F4A7C15L;
+            return key ^ (key >>> 32);
+        }
+    }
+}
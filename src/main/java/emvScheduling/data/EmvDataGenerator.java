@@ -1,16 +1,24 @@
 package emvScheduling.data;
 
-import emvScheduling.domain.Computer;
 import emvScheduling.domain.ProblemFacts;
-import emvScheduling.domain.Process;
+import emvScheduling.domain.ProblemInstance;
 import emvScheduling.domain.UnorderedPair;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
 
 public class EmvDataGenerator {
     protected final static transient Logger logger = LoggerFactory.getLogger(EmvDataGenerator.class);
+    //see ConflictPairGenerator; version 1 reproduces the conflicts of the benchmarks generated so far
+    private static final int conflictGeneratorVersion = Integer.getInteger("emv.conflictGeneratorVersion", 1);
+
+    public static int getConflictGeneratorVersion() {
+        return conflictGeneratorVersion;
+    }
 
     /**
      * execution time of th processes is a random number in [processExecutionTimeMin, processTimeExecutionMax]
@@ -26,73 +34,77 @@ public class EmvDataGenerator {
     public static ProblemFacts getBenchmark(Integer randomSeed, Integer processCount, Integer processExecutionTimeMin,
                                             Integer processExecutionTimeMax,
                                             Integer computerCount, Integer conflictPercentage, Integer timeWeight) {
+        return getBenchmarkInstance(randomSeed, processCount, processExecutionTimeMin, processExecutionTimeMax,
+                computerCount, conflictPercentage, timeWeight).toProblemFacts();
+    }
+
+    /**
+     * same benchmark as {@link #getBenchmark}, generated directly in the compact form used by the solver
+     *
+     * @param randomSeed
+     * @param processCount
+     * @param processExecutionTimeMin
+     * @param processExecutionTimeMax
+     * @param computerCount
+     * @param conflictPercentage
+     * @param timeWeight
+     * @return
+     */
+    public static ProblemInstance getBenchmarkInstance(Integer randomSeed, Integer processCount,
+                                                       Integer processExecutionTimeMin, Integer processExecutionTimeMax,
+                                                       Integer computerCount, Integer conflictPercentage,
+                                                       Integer timeWeight) {
         Random random = new Random(randomSeed);
         if(processExecutionTimeMin>processExecutionTimeMax)
             throw new RuntimeException("processExecutionTimeMin must be less than or equal to processTimeExecutionMax");
 
         logger.trace("start generating data(processCount=" + processCount + ", computerCount=" + computerCount +
                 ", conflictPercentage=" + conflictPercentage + ", timeWeight=" + timeWeight + ")");
-        ProblemFacts problemFacts = new ProblemFacts();
-
-        List<Computer> computers = new ArrayList<>();
-        problemFacts.setComputers(computers);
-        for (int computerIdx = 0; computerIdx < computerCount; computerIdx++) {
-            Computer computer = new Computer(computerIdx, 1, 1);
-            computers.add(computer);
-        }
 
-        List<Process> processes = new ArrayList<>();
-        problemFacts.setProcesses(processes);
+        int[] costPerOperation = new int[computerCount];
+        int[] costPerIdleTime = new int[computerCount];
+        Arrays.fill(costPerOperation, 1);
+        Arrays.fill(costPerIdleTime, 1);
 
-        String processDurations = "";
+        int[] durations = new int[processCount];
+        int[] operationCounts = new int[processCount];
         for (int processIdx = 0; processIdx < processCount; processIdx++) {
-
-            Integer executionTime =
+            durations[processIdx] =
                     random.nextInt(processExecutionTimeMax - processExecutionTimeMin + 1) + processExecutionTimeMin;
-            Process process = new Process(processIdx, executionTime, 1);
-            processes.add(process);
-            processDurations += " " + executionTime;
+            operationCounts[processIdx] = 1;
+        }
+        if (logger.isTraceEnabled()) {
+            StringBuilder processDurations = new StringBuilder();
+            for (int duration : durations) {
+                processDurations.append(' ').append(duration);
+            }
+            logger.trace("processDurations: " + processDurations);
         }
-        logger.trace("processDurations: " + processDurations);
-
-        List<UnorderedPair<Integer>> conflicts = generateConflictPairs(randomSeed, processCount, conflictPercentage);
-        problemFacts.setConflictingProcesses(conflicts);
 
-        problemFacts.setTimeWeight(timeWeight);
+        long[] conflicts = ConflictPairGenerator.generate(conflictGeneratorVersion, randomSeed, processCount,
+                conflictPercentage);
+        int[][] csr = ProblemInstance.toCsr(processCount, conflicts);
 
-        String conflictsStr = "";
-        for (UnorderedPair<Integer>pair: conflicts){
-            conflictsStr += "("+pair.getI()+","+pair.getJ()+"),";
+        if (logger.isTraceEnabled()) {
+            StringBuilder conflictsStr = new StringBuilder();
+            for (long pair : conflicts) {
+                conflictsStr.append('(').append(ConflictPairGenerator.first(pair)).append(',')
+                        .append(ConflictPairGenerator.second(pair)).append("),");
+            }
+            logger.trace("finished generating data, conflicts are:\n" + conflictsStr);
         }
-        logger.trace("finished generating data, conflicts are:\n"+conflictsStr);
-        return problemFacts;
+        return new ProblemInstance(durations, operationCounts, costPerOperation, costPerIdleTime, timeWeight,
+                csr[0], csr[1]);
     }
 
     public static List<UnorderedPair<Integer>> generateConflictPairs(Integer randomSeed, Integer processCount,
                                                                      Integer conflictPercentage) {
-        Random random = new Random(randomSeed);
-        List<UnorderedPair<Integer>> conflictPairs = new ArrayList<>();
-        Set<String> uniquePairs = new HashSet<>();
-        int totalPairs = processCount * (processCount - 1) / 2; // Total unique pairs
-        int requiredConflicts = totalPairs * conflictPercentage / 100; // Number of conflicts based on percentage
-
-        while (uniquePairs.size() < requiredConflicts) {
-            int processA = random.nextInt(processCount);
-            int processB = random.nextInt(processCount);
-
-            // Ensure processA and processB are different and order pair consistently to avoid duplicates
-            if (processA != processB) {
-                int minProcess = Math.min(processA, processB);
-                int maxProcess = Math.max(processA, processB);
-                String pairKey = minProcess + "-" + maxProcess;
-
-                if (!uniquePairs.contains(pairKey)) {
-                    uniquePairs.add(pairKey);
-                    conflictPairs.add(new UnorderedPair<>(minProcess, maxProcess));
-                }
-            }
+        long[] keys = ConflictPairGenerator.generate(conflictGeneratorVersion, randomSeed, processCount,
+                conflictPercentage);
+        List<UnorderedPair<Integer>> conflictPairs = new ArrayList<>(keys.length);
+        for (long key : keys) {
+            conflictPairs.add(new UnorderedPair<>(ConflictPairGenerator.first(key), ConflictPairGenerator.second(key)));
         }
-        Collections.sort(conflictPairs);
         return conflictPairs;
     }
 }
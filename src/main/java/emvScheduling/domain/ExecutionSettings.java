@@ -3,16 +3,172 @@ package emvScheduling.domain;
 import lombok.Getter;
 import lombok.Setter;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
 @Getter
 @Setter
-public class ExecutionSettings {
+public class ExecutionSettings implements Cloneable {
     private Integer numberOfWorkers;
     private Integer maxSolverExecutionTimeInSeconds;
     private Integer randomSeed;
+    //time limit with sub-millisecond resolution, in ISO-8601 form from the command line (e.g. PT0.05S), replacing
+    //maxSolverExecutionTimeInSeconds when set; deadline is an absolute end of the solve, the earlier of the two applies
+    private Duration timeLimit = Optional.ofNullable(System.getProperty("emv.timeLimit")).map(Duration::parse)
+            .orElse(null);
+    private Instant deadline;
+
+    //model settings, overridable from command line by -Demv.<fieldName>=<value>:
+    //CP_SAT solves the joint model, DECOMPOSITION alternates assignment and sequencing models (see DecompositionSolver),
+    //LNS re-optimizes parts of the incumbent (see LnsSolver), SHARDING solves the components of the conflict graph
+    //apart (see ShardingSolver), MULTILEVEL solves a coarsened instance and refines it (see MultilevelSolver)
+    //with subproblems limited to decompositionSubproblemTimeLimitInMillis each
+    private Engine engine = Engine.valueOf(System.getProperty("emv.engine", Engine.CP_SAT.name()));
+    private Integer decompositionSubproblemTimeLimitInMillis =
+            Integer.getInteger("emv.decompositionSubproblemTimeLimitInMillis", 2000);
+    //LNS re-optimizes lnsNeighbourhoodSize processes at a time (see LnsSolver), each subproblem within
+    //lnsSubproblemTimeLimitInMillis
+    private Integer lnsNeighbourhoodSize = Integer.getInteger("emv.lnsNeighbourhoodSize", 30);
+    private Integer lnsSubproblemTimeLimitInMillis = Integer.getInteger("emv.lnsSubproblemTimeLimitInMillis", 500);
+    //MULTILEVEL merges processes until at most multilevelCoarseSize are left
+    private Integer multilevelCoarseSize = Integer.getInteger("emv.multilevelCoarseSize", 200);
+    //solves single-computer, conflict-free and one-computer-per-process instances without the full model
+    private boolean fastPaths = Boolean.parseBoolean(System.getProperty("emv.fastPaths", "true"));
+    //processes with at most peelMaxDegree conflicts are left out of the model and inserted in its idle gaps
+    //afterwards (see ConflictFreePeeling)
+    private boolean conflictFreePeeling = Boolean.parseBoolean(System.getProperty("emv.conflictFreePeeling", "false"));
+    private Integer peelMaxDegree = Integer.getInteger("emv.peelMaxDegree", 0);
+    private ModelType modelType = ModelType.valueOf(System.getProperty("emv.modelType", ModelType.PAIRWISE.name()));
+    private boolean conflictCliqueCover = Boolean.parseBoolean(System.getProperty("emv.conflictCliqueCover", "true"));
+    private Integer cliqueCoverTimeLimitInMillis = Integer.getInteger("emv.cliqueCoverTimeLimitInMillis", 1000);
+    //only applied when the computers are interchangeable (equal costs)
+    private boolean computerSymmetryBreaking =
+            Boolean.parseBoolean(System.getProperty("emv.computerSymmetryBreaking", "true"));
+    //processes with the same duration and conflicts start in index order (see TwinClasses)
+    private boolean twinOrdering = Boolean.parseBoolean(System.getProperty("emv.twinOrdering", "true"));
+    //global cumulative and per-computer load <= makespan, implied by the model
+    private boolean redundantConstraints = Boolean.parseBoolean(System.getProperty("emv.redundantConstraints", "false"));
+    //stops once the expected makespan gain is less than the wall time it costs, see StagnationStopController
+    private boolean stagnationStop = Boolean.parseBoolean(System.getProperty("emv.stagnationStop", "false"));
+    private Integer stagnationWindowInMillis = Integer.getInteger("emv.stagnationWindowInMillis", 1000);
+    private Integer makespanUnitsPerSecond = Integer.getInteger("emv.makespanUnitsPerSecond", 1000);//execution times are in millisecond
+    //races native solvers configured by the named ParameterProfiles, sharing numberOfWorkers among them
+    private boolean portfolioRace = Boolean.parseBoolean(System.getProperty("emv.portfolioRace", "false"));
+    private String raceProfiles = System.getProperty("emv.raceProfiles", "default,portfolio,fixed,noLns");
+    //SatParameters in protobuf text format applied over the defaults, and the booster review round; both are taken
+    //from the best profile of parameterProfileFile (written by ParameterTuner) when it is set
+    private String satParameters = System.getProperty("emv.satParameters");
+    private Integer boosterLooseReviewRound = Integer.getInteger("emv.boosterLooseReviewRound", 33);
+    //with a positive boosterTimeBudgetInMillis, every process sort type is run with every review round below (and
+    //boosterLooseReviewRound) concurrently within it, and the best schedule is kept; 0 runs the configured strategy only
+    private Integer boosterTimeBudgetInMillis = Integer.getInteger("emv.boosterTimeBudgetInMillis", 0);
+    private String boosterReviewRounds = System.getProperty("emv.boosterReviewRounds", "10,33,100");
+    private String parameterProfileFile = System.getProperty("emv.parameterProfileFile");
+    //the incumbent schedule and bound are written to checkpointFile every checkpointIntervalInMillis when set; with
+    //restartFromCheckpoint, a checkpoint of the same instance is loaded as hint and makespan upper bound
+    private String checkpointFile = System.getProperty("emv.checkpointFile");
+    private Integer checkpointIntervalInMillis = Integer.getInteger("emv.checkpointIntervalInMillis", 10000);
+    private boolean restartFromCheckpoint =
+            Boolean.parseBoolean(System.getProperty("emv.restartFromCheckpoint", "false"));
+    //best schedules of the instances solved before, used as hint and upper bound when the same instance comes again
+    private String solutionMemoryDir = System.getProperty("emv.solutionMemoryDir");
 
     public ExecutionSettings(Integer numberOfWorkers, Integer maxSolverExecutionTimeInSeconds, Integer randomSeed) {
         this.numberOfWorkers = numberOfWorkers;
         this.maxSolverExecutionTimeInSeconds = maxSolverExecutionTimeInSeconds;
         this.randomSeed = randomSeed;
     }
+
+    /**
+     * @return the earlier of the deadline and the end of the time limit (or maxSolverExecutionTimeInSeconds) from now
+     */
+    public Instant deadlineFromNow() {
+        Instant end = Instant.now().plus(timeLimit != null ? timeLimit
+                : Duration.ofSeconds(maxSolverExecutionTimeInSeconds));
+        return deadline != null && deadline.isBefore(end) ? deadline : end;
+    }
+
+    /**
+     * @return time left until {@link #deadlineFromNow()}, zero once it has passed
+     */
+    public Duration getTimeLeft() {
+        Duration left = Duration.between(Instant.now(), deadlineFromNow());
+        return left.isNegative() ? Duration.ZERO : left;
+    }
+
+    /**
+     * @return a copy whose deadline is fixed from now, so every stage of a solve shares it
+     */
+    public ExecutionSettings withDeadlineFromNow() {
+        ExecutionSettings settings = copy();
+        settings.setDeadline(deadlineFromNow());
+        return settings;
+    }
+
+    /**
+     * @return the settings that change how a row is solved, as name=value pairs separated by ';' (so it fits in one
+     * csv column), to tell apart the output rows of different settings
+     */
+    public String getModelSettingsSummary() {
+        return "engine=" + engine + ";modelType=" + modelType + ";fastPaths=" + fastPaths
+                + ";conflictFreePeeling=" + conflictFreePeeling + ";peelMaxDegree=" + peelMaxDegree
+                + ";conflictCliqueCover=" + conflictCliqueCover + ";computerSymmetryBreaking=" + computerSymmetryBreaking
+                + ";twinOrdering=" + twinOrdering + ";redundantConstraints=" + redundantConstraints
+                + ";stagnationStop=" + stagnationStop + ";portfolioRace=" + portfolioRace
+                + ";boosterTimeBudgetInMillis=" + boosterTimeBudgetInMillis;
+    }
+
+    /**
+     * @return a shallow copy, to change settings of a sub-solve without affecting the caller
+     */
+    public ExecutionSettings copy() {
+        try {
+            return (ExecutionSettings) clone();
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * how the schedule is searched
+     */
+    public enum Engine {
+        /**
+         * one CP-SAT model deciding the computer and the start of every process at once
+         */
+        CP_SAT,
+        /**
+         * an assignment model and a sequencing model of the fixed assignment, iterated with no-good cuts
+         */
+        DECOMPOSITION,
+        /**
+         * small CP-SAT models re-optimizing neighbourhoods of the incumbent schedule, in parallel
+         */
+        LNS,
+        /**
+         * one CP-SAT model per group of conflict components, each on its own share of the computers, in parallel
+         */
+        SHARDING,
+        /**
+         * the CP-SAT model of a coarsened instance, whose processes are groups of processes run back to back, refined
+         * by LNS level by level
+         */
+        MULTILEVEL
+    }
+
+    /**
+     * formulation used by the CP solver to keep processes of the same computer from overlapping
+     */
+    public enum ModelType {
+        /**
+         * a sameComputer literal and two ordering literals for every pair of processes (O(n^2) variables)
+         */
+        PAIRWISE,
+        /**
+         * one optional interval per (process, computer), exactly one of them present, and one no-overlap per computer
+         * (O(n*m) variables)
+         */
+        OPTIONAL_INTERVAL
+    }
 }
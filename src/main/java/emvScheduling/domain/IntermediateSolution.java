@@ -0,0 +1,37 @@
+package emvScheduling.domain;
+
+import lombok.Getter;
+
+/**
+ * an improving schedule found while solving, indexed by process id
+ */
+@Getter
+public class IntermediateSolution {
+    private final int[] computerAssignment;
+    private final int[] startTimes;
+    private final long makespan;
+    private final double bound;//best proven lower bound of the makespan at the time of the solution
+    private final double wallTime;//in seconds from the start of the search
+
+    public IntermediateSolution(int[] computerAssignment, int[] startTimes, long makespan, double bound,
+                                double wallTime) {
+        this.computerAssignment = computerAssignment;
+        this.startTimes = startTimes;
+        this.makespan = makespan;
+        this.bound = bound;
+        this.wallTime = wallTime;
+    }
+
+    public boolean isOptimal() {
+        return makespan <= bound;
+    }
+
+    @Override
+    public String toString() {
+        return "IntermediateSolution{" +
+                "makespan=" + makespan +
+                ", bound=" + bound +
+                ", wallTime=" + wallTime +
+                '}';
+    }
+}
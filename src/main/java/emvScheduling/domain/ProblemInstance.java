@@ -0,0 +1,297 @@
+package emvScheduling.domain;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * compact, immutable form of the problem facts: processes and computers are indexed by id from 0, the process facts
+ * are primitive arrays and the conflicts are kept in compressed sparse row (CSR) form, i.e. the conflicting processes
+ * of process p are conflictTargets[conflictOffsets[p]] .. conflictTargets[conflictOffsets[p + 1] - 1], in increasing
+ * order. Every conflict appears in the rows of both processes.
+ * <p>
+ * The arrays are shared, not copied, and must not be modified.
+ */
+@Getter
+public class ProblemInstance {
+    private final int[] durations;//execution time of each process, in millisecond
+    private final int[] operationCounts;
+    private final int[] costPerOperation;//of each computer
+    private final int[] costPerIdleTime;//of each computer
+    private final int timeWeight;//out of 100
+    private final int[] conflictOffsets;
+    private final int[] conflictTargets;
+
+    public ProblemInstance(int[] durations, int[] operationCounts, int[] costPerOperation, int[] costPerIdleTime,
+                           int timeWeight, int[] conflictOffsets, int[] conflictTargets) {
+        this.durations = durations;
+        this.operationCounts = operationCounts;
+        this.costPerOperation = costPerOperation;
+        this.costPerIdleTime = costPerIdleTime;
+        this.timeWeight = timeWeight;
+        this.conflictOffsets = conflictOffsets;
+        this.conflictTargets = conflictTargets;
+    }
+
+    public int getProcessCount() {
+        return durations.length;
+    }
+
+    public int getComputerCount() {
+        return costPerOperation.length;
+    }
+
+    public int getCostWeight() {
+        return 100 - timeWeight;
+    }
+
+    public int getConflictPairCount() {
+        return conflictTargets.length / 2;
+    }
+
+    public int getDegree(int process) {
+        return conflictOffsets[process + 1] - conflictOffsets[process];
+    }
+
+    public boolean hasConflict(int process1, int process2) {
+        return Arrays.binarySearch(conflictTargets, conflictOffsets[process1], conflictOffsets[process1 + 1],
+                process2) >= 0;
+    }
+
+    public long getTotalDuration() {
+        long total = 0;
+        for (int duration : durations) {
+            total += duration;
+        }
+        return total;
+    }
+
+    /**
+     * @param processes     processes kept, process k of the result being processes[k]
+     * @param computerCount the first computerCount computers are kept
+     * @return the instance restricted to the given processes, with the conflicts among them
+     */
+    public ProblemInstance subInstance(int[] processes, int computerCount) {
+        int[] newIds = new int[getProcessCount()];
+        Arrays.fill(newIds, -1);
+        for (int k = 0; k < processes.length; k++) {
+            newIds[processes[k]] = k;
+        }
+        int[] subDurations = new int[processes.length];
+        int[] subOperationCounts = new int[processes.length];
+        int[] offsets = new int[processes.length + 1];
+        for (int k = 0; k < processes.length; k++) {
+            int p = processes[k];
+            subDurations[k] = durations[p];
+            subOperationCounts[k] = operationCounts[p];
+            int degree = 0;
+            for (int j = conflictOffsets[p]; j < conflictOffsets[p + 1]; j++) {
+                if (newIds[conflictTargets[j]] >= 0) {
+                    degree++;
+                }
+            }
+            offsets[k + 1] = offsets[k] + degree;
+        }
+        int[] targets = new int[offsets[processes.length]];
+        for (int k = 0; k < processes.length; k++) {
+            int next = offsets[k];
+            for (int j = conflictOffsets[processes[k]]; j < conflictOffsets[processes[k] + 1]; j++) {
+                if (newIds[conflictTargets[j]] >= 0) {
+                    targets[next++] = newIds[conflictTargets[j]];
+                }
+            }
+            Arrays.sort(targets, offsets[k], offsets[k + 1]);
+        }
+        return new ProblemInstance(subDurations, subOperationCounts, Arrays.copyOf(costPerOperation, computerCount),
+                Arrays.copyOf(costPerIdleTime, computerCount), timeWeight, offsets, targets);
+    }
+
+    /**
+     * @param groupOf    group of each process, from 0
+     * @param groupCount
+     * @return the instance where each group is one process, of the summed duration and operation count, conflicting
+     * with the groups its processes conflict with
+     */
+    public ProblemInstance contract(int[] groupOf, int groupCount) {
+        int[] groupDurations = new int[groupCount];
+        int[] groupOperationCounts = new int[groupCount];
+        long[] packedPairs = new long[conflictTargets.length];
+        int pairCount = 0;
+        for (int p = 0; p < getProcessCount(); p++) {
+            groupDurations[groupOf[p]] += durations[p];
+            groupOperationCounts[groupOf[p]] += operationCounts[p];
+            for (int k = conflictOffsets[p]; k < conflictOffsets[p + 1]; k++) {
+                int group1 = groupOf[p];
+                int group2 = groupOf[conflictTargets[k]];
+                if (group1 < group2) {
+                    packedPairs[pairCount++] = ((long) group1 << 32) | group2;
+                }
+            }
+        }
+        long[] distinctPairs = Arrays.stream(packedPairs, 0, pairCount).sorted().distinct().toArray();
+        int[][] csr = toCsr(groupCount, distinctPairs);
+        return new ProblemInstance(groupDurations, groupOperationCounts, costPerOperation, costPerIdleTime,
+                timeWeight, csr[0], csr[1]);
+    }
+
+    /**
+     * @return 64-bit FNV-1a hash of all the facts, to recognize the same instance across runs
+     */
+    public long getFingerprint() {
+        return fingerprint(getProcessFingerprint(), new int[][]{costPerOperation, costPerIdleTime});
+    }
+
+    /**
+     * @return 64-bit FNV-1a hash of the facts except the computers, to recognize the same processes and conflicts
+     * scheduled on another number of computers
+     */
+    public long getProcessFingerprint() {
+        return fingerprint(0xcbf29ce484222325L, new int[][]{durations, operationCounts, {timeWeight}, conflictOffsets,
+                conflictTargets});
+    }
+
+    private static long fingerprint(long hash, int[][] arrays) {
+        for (int[] values : arrays) {
+            hash = (hash ^ values.length) * 0x100000001b3L;
+            for (int value : values) {
+                hash = (hash ^ value) * 0x100000001b3L;
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * builds the CSR form of distinct unordered pairs
+     *
+     * @param processCount
+     * @param firsts       one process of each pair
+     * @param seconds      the other process of each pair
+     * @param pairCount    number of pairs used from the two arrays
+     * @return {offsets, targets}
+     */
+    public static int[][] toCsr(int processCount, int[] firsts, int[] seconds, int pairCount) {
+        int[] offsets = new int[processCount + 1];
+        for (int k = 0; k < pairCount; k++) {
+            offsets[firsts[k] + 1]++;
+            offsets[seconds[k] + 1]++;
+        }
+        for (int p = 0; p < processCount; p++) {
+            offsets[p + 1] += offsets[p];
+        }
+        int[] targets = new int[offsets[processCount]];
+        int[] next = Arrays.copyOf(offsets, processCount);
+        for (int k = 0; k < pairCount; k++) {
+            targets[next[firsts[k]]++] = seconds[k];
+            targets[next[seconds[k]]++] = firsts[k];
+        }
+        for (int p = 0; p < processCount; p++) {
+            Arrays.sort(targets, offsets[p], offsets[p + 1]);
+        }
+        return new int[][]{offsets, targets};
+    }
+
+    /**
+     * builds the CSR form of distinct pairs packed as (min << 32) | max and given in increasing order, without
+     * sorting the rows
+     *
+     * @param processCount
+     * @param packedPairs
+     * @return {offsets, targets}
+     */
+    public static int[][] toCsr(int processCount, long[] packedPairs) {
+        int[] offsets = new int[processCount + 1];
+        for (long key : packedPairs) {
+            offsets[(int) (key >>> 32) + 1]++;
+            offsets[(int) key + 1]++;
+        }
+        for (int p = 0; p < processCount; p++) {
+            offsets[p + 1] += offsets[p];
+        }
+        // row p first receives its smaller neighbours then its larger ones, both in increasing order
+        int[] targets = new int[offsets[processCount]];
+        int[] next = Arrays.copyOf(offsets, processCount);
+        for (long key : packedPairs) {
+            int first = (int) (key >>> 32);
+            int second = (int) key;
+            targets[next[first]++] = second;
+            targets[next[second]++] = first;
+        }
+        return new int[][]{offsets, targets};
+    }
+
+    /**
+     * adapter from the object form; relies on incremental ids from 0
+     *
+     * @param facts
+     * @return
+     */
+    public static ProblemInstance from(ProblemFacts facts) {
+        int processCount = facts.getProcesses().size();
+        int[] durations = new int[processCount];
+        int[] operationCounts = new int[processCount];
+        for (Process process : facts.getProcesses()) {
+            durations[process.getId()] = process.getExecutionTime();
+            operationCounts[process.getId()] = process.getOperationCount();
+        }
+        int computerCount = facts.getComputers().size();
+        int[] costPerOperation = new int[computerCount];
+        int[] costPerIdleTime = new int[computerCount];
+        for (Computer computer : facts.getComputers()) {
+            costPerOperation[computer.getId()] = computer.getCostPerOperation();
+            costPerIdleTime[computer.getId()] = computer.getCostPerIdleTime();
+        }
+        List<UnorderedPair<Integer>> pairs = facts.getConflictingProcesses();
+        int pairCount = pairs == null ? 0 : pairs.size();
+        int[] firsts = new int[pairCount];
+        int[] seconds = new int[pairCount];
+        for (int k = 0; k < pairCount; k++) {
+            firsts[k] = pairs.get(k).getI();
+            seconds[k] = pairs.get(k).getJ();
+        }
+        int[][] csr = toCsr(processCount, firsts, seconds, pairCount);
+        return new ProblemInstance(durations, operationCounts, costPerOperation, costPerIdleTime,
+                facts.getTimeWeight(), csr[0], csr[1]);
+    }
+
+    /**
+     * adapter to the object form, with the conflicting pairs in increasing order
+     *
+     * @return
+     */
+    public ProblemFacts toProblemFacts() {
+        ProblemFacts facts = new ProblemFacts();
+        List<Computer> computers = new ArrayList<>(getComputerCount());
+        for (int c = 0; c < getComputerCount(); c++) {
+            computers.add(new Computer(c, costPerOperation[c], costPerIdleTime[c]));
+        }
+        facts.setComputers(computers);
+        List<Process> processes = new ArrayList<>(getProcessCount());
+        for (int p = 0; p < getProcessCount(); p++) {
+            processes.add(new Process(p, durations[p], operationCounts[p]));
+        }
+        facts.setProcesses(processes);
+        List<UnorderedPair<Integer>> conflicts = new ArrayList<>(getConflictPairCount());
+        for (int p = 0; p < getProcessCount(); p++) {
+            for (int k = conflictOffsets[p]; k < conflictOffsets[p + 1]; k++) {
+                if (conflictTargets[k] > p) {
+                    conflicts.add(new UnorderedPair<>(p, conflictTargets[k]));
+                }
+            }
+        }
+        facts.setConflictingProcesses(conflicts);
+        facts.setTimeWeight(timeWeight);
+        return facts;
+    }
+
+    @Override
+    public String toString() {
+        return "ProblemInstance{" +
+                "processCount=" + getProcessCount() +
+                ", computerCount=" + getComputerCount() +
+                ", conflictPairCount=" + getConflictPairCount() +
+                ", timeWeight=" + timeWeight +
+                '}';
+    }
+}
@@ -6,18 +6,139 @@ import lombok.Setter;
 @Getter
 @Setter
 public class SolverOutput {
+    private String engine;
+    private Route route;//instance class that decided how it was solved
     private Double solverWallTime;
     private Double makespan;
     private Integer horizon;//parallel execution time
     private String solverStatus;
+    private StopReason stopReason;
+    private Integer lowerBound;//combinatorial lower bound of the makespan
+    private Double bestObjectiveBound;//bound proven by the solver
+    private Double firstBoundImprovementTime;//in seconds from the start of the search, null if never improved
+    private Double firstSolutionTime;//in seconds from the start of the search, null if no solution was found
+    private Double finalSolutionTime;//time of the last improving solution, in seconds from the start of the search
+    private String hintSource;//BOOSTER, FAST_PATH, INITIAL, MEMORY, MEMORY_REPAIRED or CHECKPOINT, null without hint
+    //seconds the first and final solutions arrived sooner than in the first booster-hinted solve of the instance,
+    //for a solve hinted from the solution memory; null otherwise
+    private Double firstSolutionTimeSaved;
+    private Double finalSolutionTimeSaved;
+
+    //schedule, indexed by process id:
+    private int[] computerAssignment;
+    private int[] startTimes;
+
+    //model statistics:
+    private String modelType;
+    private Double modelBuildTime;//in seconds
+    private Integer modelVariableCount;
+    private Integer modelConstraintCount;
+    private Long modelHeapUsage;//in bytes, heap used after building the model
+    private Integer conflictPairCount;
+    private Integer conflictConstraintCount;//no_overlap constraints posted for the conflicting pairs
+    private Boolean computerSymmetryBreaking;
+    private Integer twinClassCount;//classes of interchangeable processes ordered in the model
+    private Integer twinProcessCount;//processes in these classes
+    private String raceWinner;//parameter profile that won the portfolio race
+    private String boosterStrategy;//processSortType/looseReviewRound of the best booster schedule
+    private Integer decompositionIterations;//assignments sequenced by the DECOMPOSITION engine
+    private Integer lnsSubproblems;//neighbourhoods re-optimized by the LNS engine
+    private Integer shardCount;//groups of conflict components solved apart by the SHARDING engine
+    private Integer shardRebalances;//computers moved between shards
+    private Integer multilevelLevels;//coarsening levels of the MULTILEVEL engine
+    private Integer coarseProcessCount;//processes of the coarsest level
+    private Integer peeledProcessCount;//processes left out of the model and inserted in its gaps
+    private Boolean peelingResolved;//the inserted processes extended the makespan, so the whole instance was solved
+
+    public Double getConflictCompressionRatio() {
+        if (conflictPairCount == null || conflictConstraintCount == null || conflictConstraintCount == 0)
+            return null;
+        return (double) conflictPairCount / conflictConstraintCount;
+    }
 
     @Override
     public String toString() {
         return "SolverOutput{" +
-                "solverWallTime=" + solverWallTime +
+                "engine=" + engine +
+                ", route=" + route +
+                ", solverWallTime=" + solverWallTime +
                 ", makespan=" + makespan +
                 ", horizon=" + horizon +
                 ", solverStatus=" + solverStatus +
+                ", stopReason=" + stopReason +
+                ", lowerBound=" + lowerBound +
+                ", bestObjectiveBound=" + bestObjectiveBound +
+                ", firstBoundImprovementTime=" + firstBoundImprovementTime +
+                ", modelType=" + modelType +
+                ", modelBuildTime=" + modelBuildTime +
+                ", modelVariableCount=" + modelVariableCount +
+                ", modelConstraintCount=" + modelConstraintCount +
+                ", modelHeapUsage=" + modelHeapUsage +
+                ", conflictPairCount=" + conflictPairCount +
+                ", conflictConstraintCount=" + conflictConstraintCount +
+                ", conflictCompressionRatio=" + getConflictCompressionRatio() +
+                ", computerSymmetryBreaking=" + computerSymmetryBreaking +
+                ", twinClassCount=" + twinClassCount +
+                ", twinProcessCount=" + twinProcessCount +
+                ", raceWinner=" + raceWinner +
+                ", boosterStrategy=" + boosterStrategy +
+                ", decompositionIterations=" + decompositionIterations +
+                ", lnsSubproblems=" + lnsSubproblems +
+                ", shardCount=" + shardCount +
+                ", shardRebalances=" + shardRebalances +
+                ", multilevelLevels=" + multilevelLevels +
+                ", coarseProcessCount=" + coarseProcessCount +
+                ", peeledProcessCount=" + peeledProcessCount +
+                ", peelingResolved=" + peelingResolved +
+                ", firstSolutionTime=" + firstSolutionTime +
+                ", finalSolutionTime=" + finalSolutionTime +
+                ", hintSource=" + hintSource +
+                ", firstSolutionTimeSaved=" + firstSolutionTimeSaved +
+                ", finalSolutionTimeSaved=" + finalSolutionTimeSaved +
                 '}';
     }
+
+    /**
+     * instance class, see FastPathSolver
+     */
+    public enum Route {
+        /**
+         * the general case, solved by the engine of the settings
+         */
+        MODEL,
+        /**
+         * one computer (or no process): the processes run one after another
+         */
+        SERIAL,
+        /**
+         * no conflict: identical parallel machines, solved by LPT and MULTIFIT when they meet the lower bound
+         */
+        NO_CONFLICT,
+        /**
+         * at least as many computers as processes: only the conflicts are scheduled
+         */
+        CONFLICT_ONLY
+    }
+
+    /**
+     * why the search ended
+     */
+    public enum StopReason {
+        OPTIMAL,
+        INFEASIBLE,
+        MODEL_INVALID,
+        TIME_LIMIT,
+        /**
+         * a schedule reached the combinatorial lower bound before the search started
+         */
+        LOWER_BOUND_REACHED,
+        /**
+         * continuing was expected to cost more wall time than it would gain in makespan
+         */
+        STAGNATION,
+        /**
+         * stopped on request of the caller
+         */
+        CANCELLED
+    }
 }
@@ -0,0 +1,132 @@
+package emvScheduling.solver;
+
+import emvScheduling.domain.IntermediateSolution;
+import emvScheduling.domain.ProblemInstance;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * binary file of an incumbent schedule and the best bound of a solve: a header (magic, format version, fingerprint
+ * of the instance, process count, makespan, bound, wall time) followed by the computer and start time of each process
+ * as variable-length ints. It is written to a temporary file that is synced and then renamed over the checkpoint, so
+ * the checkpoint is always either the previous or the new one.
+ */
+public class Checkpoint {
+    protected final static transient Logger logger = LoggerFactory.getLogger(Checkpoint.class);
+
+    private static final int MAGIC = 0x454D5643;//"EMVC"
+    private static final int FORMAT_VERSION = 1;
+
+    public static void write(Path file, ProblemInstance instance, IntermediateSolution solution, double bound)
+            throws IOException {
+        write(file, instance.getFingerprint(), solution, bound);
+    }
+
+    /**
+     * @param fingerprint identifies the instance of the schedule
+     */
+    static void write(Path file, long fingerprint, IntermediateSolution solution, double bound) throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        // a unique temporary file, as concurrent solves may write the same checkpoint
+        Path temporary = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try {
+            try (FileOutputStream fileOut = new FileOutputStream(temporary.toFile());
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOut))) {
+                int processCount = solution.getStartTimes().length;
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeLong(fingerprint);
+                out.writeInt(processCount);
+                out.writeLong(solution.getMakespan());
+                out.writeDouble(Math.max(bound, solution.getBound()));
+                out.writeDouble(solution.getWallTime());
+                for (int p = 0; p < processCount; p++) {
+                    writeVarInt(out, solution.getComputerAssignment()[p]);
+                    writeVarInt(out, solution.getStartTimes()[p]);
+                }
+                out.flush();
+                fileOut.getFD().sync();
+            }
+            Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+    }
+
+    /**
+     * @param file
+     * @param instance
+     * @return the checkpointed schedule, or null if there is no checkpoint, it belongs to another instance, it cannot
+     * be read or it violates the constraints
+     */
+    public static IntermediateSolution read(Path file, ProblemInstance instance) {
+        IntermediateSolution solution = read(file, instance.getFingerprint(), instance.getProcessCount());
+        if (solution != null && (!ScheduleChecker.isFeasible(instance, solution.getComputerAssignment(),
+                solution.getStartTimes())
+                || ScheduleChecker.makespan(instance, solution.getStartTimes()) != solution.getMakespan())) {
+            logger.warn("Checkpoint {} violates the constraints, ignored", file);
+            return null;
+        }
+        return solution;
+    }
+
+    /**
+     * @param file
+     * @param fingerprint  identifies the instance of the schedule
+     * @param processCount
+     * @return the checkpointed schedule, not checked against the constraints, or null if there is no checkpoint, it
+     * belongs to another instance or it cannot be read
+     */
+    static IntermediateSolution read(Path file, long fingerprint, int processCount) {
+        if (!Files.exists(file))
+            return null;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                logger.warn("Checkpoint {} has an unknown format, ignored", file);
+                return null;
+            }
+            if (in.readLong() != fingerprint || in.readInt() != processCount) {
+                logger.warn("Checkpoint {} belongs to another instance, ignored", file);
+                return null;
+            }
+            long makespan = in.readLong();
+            double bound = in.readDouble();
+            double wallTime = in.readDouble();
+            int[] computers = new int[processCount];
+            int[] starts = new int[processCount];
+            for (int p = 0; p < processCount; p++) {
+                computers[p] = readVarInt(in);
+                starts[p] = readVarInt(in);
+            }
+            return new IntermediateSolution(computers, starts, makespan, bound, wallTime);
+        } catch (IOException e) {
+            logger.warn("Checkpoint {} cannot be read, ignored", file, e);
+            return null;
+        }
+    }
+
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+                return value;
+        }
+        throw new IOException("Malformed variable-length int");
+    }
+}
@@ -0,0 +1,85 @@
+package emvScheduling.solver;
+
+import emvScheduling.domain.IntermediateSolution;
+import emvScheduling.domain.ProblemInstance;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * keeps the best schedule and bound of the running search and writes them as a {@link Checkpoint} on a fixed
+ * interval from a timer thread, when they changed, and once more when closed. The solver callbacks only record the
+ * state, so they are not slowed down by the writes.
+ */
+public class CheckpointWriter implements IntermediateSolutionListener, AutoCloseable {
+    protected final static transient Logger logger = LoggerFactory.getLogger(CheckpointWriter.class);
+
+    private final Path file;
+    private final ProblemInstance instance;
+    private final ScheduledExecutorService timer;
+
+    private IntermediateSolution best;
+    private double bound = Double.NEGATIVE_INFINITY;
+    private boolean changed;
+
+    public CheckpointWriter(Path file, ProblemInstance instance, long intervalInMillis) {
+        this.file = file;
+        this.instance = instance;
+        this.timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "checkpoint-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        timer.scheduleWithFixedDelay(this::write, intervalInMillis, intervalInMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public synchronized void onSolution(IntermediateSolution solution) {
+        if (best == null || solution.getMakespan() < best.getMakespan()) {
+            best = solution;
+            changed = true;
+        }
+        onBound(solution.getBound());
+    }
+
+    public synchronized void onBound(double newBound) {
+        if (newBound > bound) {
+            bound = newBound;
+            changed |= best != null;
+        }
+    }
+
+    private void write() {
+        IntermediateSolution solution;
+        double solutionBound;
+        synchronized (this) {
+            if (!changed)
+                return;
+            solution = best;
+            solutionBound = bound;
+            changed = false;
+        }
+        try {
+            Checkpoint.write(file, instance, solution, solutionBound);
+            logger.trace("Checkpoint written: makespan {}, bound {}", solution.getMakespan(), solutionBound);
+        } catch (IOException e) {
+            logger.warn("Checkpoint {} cannot be written", file, e);
+        }
+    }
+
+    @Override
+    public void close() {
+        timer.shutdown();
+        try {
+            timer.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        write();
+    }
+}
@@ -0,0 +1,181 @@
+package emvScheduling.solver;
+
+import emvScheduling.domain.ExecutionSettings;
+import emvScheduling.domain.ProblemInstance;
+import lombok.Getter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * covers the edges of the conflict graph with maximal cliques, so the CP solver can post one no_overlap per clique
+ * instead of one per conflicting pair.
+ * <p>
+ * It is a greedy cover: vertices are visited by decreasing degree and every uncovered edge of a vertex seeds a clique
+ * that is grown while a common neighbour exists, preferring neighbours that still have uncovered edges into the
+ * clique. When the time limit is reached, the remaining uncovered edges are emitted as cliques of two, so the cover is
+ * always complete.
+ * <p>
+ * Only the CSR adjacency of the instance and one covered flag per CSR slot are kept, so the memory is linear in the
+ * number of conflicting pairs.
+ */
+@Getter
+public class ConflictCliqueCover {
+    protected final static transient Logger logger = LoggerFactory.getLogger(ConflictCliqueCover.class);
+
+    private final List<int[]> cliques;
+    private final int pairCount;
+    private final boolean timedOut;
+    private final double coverTime;//in seconds
+
+    private ConflictCliqueCover(List<int[]> cliques, int pairCount, boolean timedOut, double coverTime) {
+        this.cliques = cliques;
+        this.pairCount = pairCount;
+        this.timedOut = timedOut;
+        this.coverTime = coverTime;
+    }
+
+    /**
+     * @return number of conflicting pairs represented by each emitted clique, on average
+     */
+    public double getCompressionRatio() {
+        return cliques.isEmpty() ? 1 : (double) pairCount / cliques.size();
+    }
+
+    public static ConflictCliqueCover cover(ProblemInstance instance, long timeLimitInMillis) {
+        return coverWithin(instance, timeLimitInMillis * 1_000_000L);
+    }
+
+    /**
+     * @return the cover within cliqueCoverTimeLimitInMillis, cut short by the time left to the solve
+     */
+    public static ConflictCliqueCover cover(ProblemInstance instance, ExecutionSettings settings) {
+        return cover(instance, settings, settings.getTimeLeft().toNanos());
+    }
+
+    /**
+     * @param timeLeftInNanos time left to the stage that needs the cover
+     * @return the cover within cliqueCoverTimeLimitInMillis, cut short by the time left
+     */
+    static ConflictCliqueCover cover(ProblemInstance instance, ExecutionSettings settings, long timeLeftInNanos) {
+        return coverWithin(instance, Math.min(settings.getCliqueCoverTimeLimitInMillis() * 1_000_000L,
+                Math.max(0, timeLeftInNanos)));
+    }
+
+    private static ConflictCliqueCover coverWithin(ProblemInstance instance, long timeLimitInNanos) {
+        long startTime = System.nanoTime();
+        long deadline = startTime + timeLimitInNanos;
+
+        int processCount = instance.getProcessCount();
+        int[] offsets = instance.getConflictOffsets();
+        int[] targets = instance.getConflictTargets();
+        int pairCount = instance.getConflictPairCount();
+        // covered[k] is true once the pair of the CSR slot k is in a clique; both slots of a pair are kept in step
+        boolean[] covered = new boolean[targets.length];
+        int[] uncoveredCounts = new int[processCount];
+        for (int v = 0; v < processCount; v++) {
+            uncoveredCounts[v] = instance.getDegree(v);
+        }
+
+        Integer[] order = new Integer[processCount];
+        for (int v = 0; v < processCount; v++) {
+            order[v] = v;
+        }
+        Arrays.sort(order, (a, b) -> Integer.compare(instance.getDegree(b), instance.getDegree(a)));
+
+        List<int[]> cliques = new ArrayList<>();
+        boolean timedOut = false;
+        for (int v : order) {
+            while (uncoveredCounts[v] > 0) {
+                if (System.nanoTime() > deadline) {
+                    timedOut = true;
+                    break;
+                }
+                // seed with the uncovered neighbour of the highest degree
+                int seed = -1;
+                for (int k = offsets[v]; k < offsets[v + 1]; k++) {
+                    if (!covered[k] && (seed < 0 || instance.getDegree(targets[k]) > instance.getDegree(seed))) {
+                        seed = targets[k];
+                    }
+                }
+                List<Integer> members = new ArrayList<>(List.of(v, seed));
+                List<Integer> candidates = new ArrayList<>();
+                for (int k = offsets[v]; k < offsets[v + 1]; k++) {
+                    if (targets[k] != seed && instance.hasConflict(seed, targets[k])) {
+                        candidates.add(targets[k]);
+                    }
+                }
+
+                while (!candidates.isEmpty()) {
+                    int best = -1;
+                    boolean bestCoversNew = false;
+                    for (int w : candidates) {
+                        boolean coversNew = false;
+                        for (int m : members) {
+                            if (!covered[slot(instance, w, m)]) {
+                                coversNew = true;
+                                break;
+                            }
+                        }
+                        if (best < 0 || (coversNew && !bestCoversNew)
+                                || (coversNew == bestCoversNew && instance.getDegree(w) > instance.getDegree(best))) {
+                            best = w;
+                            bestCoversNew = coversNew;
+                        }
+                    }
+                    members.add(best);
+                    int added = best;
+                    candidates.removeIf(w -> w == added || !instance.hasConflict(added, w));
+                }
+
+                int[] clique = new int[members.size()];
+                for (int k = 0; k < clique.length; k++) {
+                    clique[k] = members.get(k);
+                }
+                for (int a = 0; a < clique.length; a++) {
+                    for (int b = a + 1; b < clique.length; b++) {
+                        int k = slot(instance, clique[a], clique[b]);
+                        if (!covered[k]) {
+                            covered[k] = true;
+                            covered[slot(instance, clique[b], clique[a])] = true;
+                            uncoveredCounts[clique[a]]--;
+                            uncoveredCounts[clique[b]]--;
+                        }
+                    }
+                }
+                cliques.add(clique);
+            }
+            if (timedOut) {
+                break;
+            }
+        }
+
+        if (timedOut) {
+            // the rest is emitted as it was given: one clique per uncovered pair
+            for (int v = 0; v < processCount; v++) {
+                for (int k = offsets[v]; k < offsets[v + 1]; k++) {
+                    if (targets[k] > v && !covered[k]) {
+                        cliques.add(new int[]{v, targets[k]});
+                    }
+                }
+            }
+        }
+
+        ConflictCliqueCover cover = new ConflictCliqueCover(cliques, pairCount, timedOut,
+                (System.nanoTime() - startTime) / 1e9);
+        logger.trace("conflict clique cover: {} pairs in {} cliques (ratio {}), timedOut={}, in {} s", pairCount,
+                cliques.size(), cover.getCompressionRatio(), timedOut, cover.getCoverTime());
+        return cover;
+    }
+
+    /**
+     * @return the CSR slot of the conflicting process {@code to} in the row of {@code from}
+     */
+    private static int slot(ProblemInstance instance, int from, int to) {
+        return Arrays.binarySearch(instance.getConflictTargets(), instance.getConflictOffsets()[from],
+                instance.getConflictOffsets()[from + 1], to);
+    }
+}
@@ -0,0 +1,227 @@
+package emvScheduling.solver;
+
+import emvScheduling.domain.ExecutionSettings;
+import emvScheduling.domain.IntermediateSolution;
+import emvScheduling.domain.ProblemInstance;
+import emvScheduling.domain.SolverOutput;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * reduction that leaves the processes with few conflicts (at most peelMaxDegree, none by default) out of the model:
+ * each of them would still add a disjunction with every other process. The conflicting core is solved alone, then the
+ * peeled processes, longest first, are inserted in the idle gap of the core schedule they fit best (the least time
+ * left over), at the earliest time their conflicting processes allow.
+ * <p>
+ * Removing processes cannot raise the optimal makespan, so when the inserted processes fit before the makespan of the
+ * core, the schedule is as good as the core one (and optimal if the core is). Otherwise the whole instance is solved
+ * again in the time left, hinted with the merged schedule.
+ */
+public class ConflictFreePeeling {
+    protected final static transient Logger logger = LoggerFactory.getLogger(ConflictFreePeeling.class);
+
+    private final CpSolver solver;
+    private volatile SolveHandle stage;
+    private volatile boolean stopped;
+
+    ConflictFreePeeling(CpSolver solver) {
+        this.solver = solver;
+    }
+
+    /**
+     * @param instance
+     * @param settings
+     * @param handle   receives the final schedule and cancels the core solve too, may be null
+     * @return the output, or null if there is nothing to peel or the core has no schedule
+     */
+    SolverOutput solve(ProblemInstance instance, ExecutionSettings settings, SolveHandle handle) {
+        long solveStart = System.nanoTime();
+        if (handle != null) {
+            handle.attach(this::stop);
+        }
+        int processCount = instance.getProcessCount();
+        List<Integer> peeled = new ArrayList<>();
+        List<Integer> core = new ArrayList<>();
+        for (int p = 0; p < processCount; p++) {
+            (instance.getDegree(p) <= settings.getPeelMaxDegree() ? peeled : core).add(p);
+        }
+        if (peeled.isEmpty() || core.size() < 2)
+            return null;
+
+        int[] coreProcesses = core.stream().mapToInt(Integer::intValue).toArray();
+        ProblemInstance coreInstance = instance.subInstance(coreProcesses, instance.getComputerCount());
+        logger.info("Peeled {} of {} processes, core of {} processes and {} conflicting pairs", peeled.size(),
+                processCount, coreProcesses.length, coreInstance.getConflictPairCount());
+        ExecutionSettings coreSettings = settings.copy();
+        coreSettings.setConflictFreePeeling(false);
+        // a checkpoint belongs to the whole instance
+        coreSettings.setCheckpointFile(null);
+        coreSettings.setRestartFromCheckpoint(false);
+        SolveHandle coreStage = nextStage();
+        SolverOutput coreOutput = solver.solve(coreInstance, coreSettings, coreStage, null);
+        coreStage.complete(coreOutput);
+        if (coreOutput.getComputerAssignment() == null)
+            return null;
+
+        int[] computers = new int[processCount];
+        int[] starts = new int[processCount];
+        boolean[] placed = new boolean[processCount];
+        for (int k = 0; k < coreProcesses.length; k++) {
+            computers[coreProcesses[k]] = coreOutput.getComputerAssignment()[k];
+            starts[coreProcesses[k]] = coreOutput.getStartTimes()[k];
+            placed[coreProcesses[k]] = true;
+        }
+        long coreMakespan = coreOutput.getMakespan().longValue();
+        peeled.sort(Comparator.comparingInt((Integer p) -> instance.getDurations()[p]).reversed());
+        insert(instance, computers, starts, placed, peeled, coreMakespan);
+        long makespan = ScheduleChecker.makespan(instance, starts);
+
+        SolverOutput solverOutput;
+        if (makespan > coreMakespan) {
+            // by the same deadline, returning the merged schedule if it is too close
+            logger.info("Peeled processes extend the makespan from {} to {}, solving again in {} s", coreMakespan,
+                    makespan, settings.getTimeLeft().toNanos() / 1e9);
+            ExecutionSettings fullSettings = settings.copy();
+            fullSettings.setConflictFreePeeling(false);
+            solverOutput = solver.solve(instance, fullSettings, handle,
+                    new IntermediateSolution(computers, starts, makespan, 0, 0));
+            solverOutput.setPeelingResolved(true);
+            if (solverOutput.getComputerAssignment() == null) {
+                solverOutput.setMakespan((double) makespan);
+                solverOutput.setComputerAssignment(computers);
+                solverOutput.setStartTimes(starts);
+            }
+        } else {
+            solverOutput = coreOutput;
+            solverOutput.setPeelingResolved(false);
+            solverOutput.setHorizon((int) instance.getTotalDuration());
+            solverOutput.setComputerAssignment(computers);
+            solverOutput.setStartTimes(starts);
+            if (handle != null) {
+                handle.onSolution(new IntermediateSolution(computers, starts, makespan,
+                        solverOutput.getBestObjectiveBound() == null ? 0 : solverOutput.getBestObjectiveBound(),
+                        (System.nanoTime() - solveStart) / 1e9));
+            }
+        }
+        solverOutput.setPeeledProcessCount(peeled.size());
+        solverOutput.setSolverWallTime((System.nanoTime() - solveStart) / 1e9);
+        return solverOutput;
+    }
+
+    /**
+     * inserts each process, in the given order, in the idle gap before the makespan where it leaves the least time
+     * over, or after the last process of the computer where it ends first when it fits in no gap
+     *
+     * @param instance
+     * @param computers computer of each process, filled for the inserted ones
+     * @param starts    start time of each process, filled for the inserted ones
+     * @param placed    processes already scheduled, updated
+     * @param processes processes to insert
+     * @param makespan  end of the gaps
+     */
+    static void insert(ProblemInstance instance, int[] computers, int[] starts, boolean[] placed,
+                       List<Integer> processes, long makespan) {
+        int[] durations = instance.getDurations();
+        List<List<Integer>> timelines = new ArrayList<>(instance.getComputerCount());
+        for (int c = 0; c < instance.getComputerCount(); c++) {
+            timelines.add(new ArrayList<>());
+        }
+        for (int p = 0; p < placed.length; p++) {
+            if (placed[p]) {
+                timelines.get(computers[p]).add(p);
+            }
+        }
+        for (List<Integer> timeline : timelines) {
+            timeline.sort(Comparator.comparingInt(p -> starts[p]));
+        }
+
+        for (int p : processes) {
+            int bestComputer = -1;
+            int bestStart = 0;
+            long bestLeftOver = Long.MAX_VALUE;
+            int tailComputer = -1;
+            int tailStart = Integer.MAX_VALUE;
+            for (int c = 0; c < timelines.size(); c++) {
+                List<Integer> timeline = timelines.get(c);
+                int gapStart = 0;
+                for (int k = 0; k <= timeline.size(); k++) {
+                    long gapEnd = k < timeline.size() ? starts[timeline.get(k)] : makespan;
+                    int start = earliestStart(instance, starts, placed, p, gapStart);
+                    if (start + durations[p] <= gapEnd && gapEnd - gapStart - durations[p] < bestLeftOver) {
+                        bestComputer = c;
+                        bestStart = start;
+                        bestLeftOver = gapEnd - gapStart - durations[p];
+                    }
+                    if (k < timeline.size()) {
+                        gapStart = Math.max(gapStart, starts[timeline.get(k)] + durations[timeline.get(k)]);
+                    }
+                }
+                int start = earliestStart(instance, starts, placed, p, gapStart);
+                if (start < tailStart) {
+                    tailComputer = c;
+                    tailStart = start;
+                }
+            }
+            if (bestComputer < 0) {
+                bestComputer = tailComputer;
+                bestStart = tailStart;
+            }
+            computers[p] = bestComputer;
+            starts[p] = bestStart;
+            placed[p] = true;
+            List<Integer> timeline = timelines.get(bestComputer);
+            int position = 0;
+            while (position < timeline.size() && starts[timeline.get(position)] < bestStart) {
+                position++;
+            }
+            timeline.add(position, p);
+        }
+    }
+
+    /**
+     * @return the earliest start from the given time at which the process overlaps none of its placed conflicting
+     * processes
+     */
+    private static int earliestStart(ProblemInstance instance, int[] starts, boolean[] placed, int process, int from) {
+        int[] durations = instance.getDurations();
+        int[] offsets = instance.getConflictOffsets();
+        int[] targets = instance.getConflictTargets();
+        int start = from;
+        boolean moved = true;
+        while (moved) {
+            moved = false;
+            for (int k = offsets[process]; k < offsets[process + 1]; k++) {
+                int q = targets[k];
+                if (placed[q] && starts[q] < start + durations[process] && start < starts[q] + durations[q]) {
+                    start = starts[q] + durations[q];
+                    moved = true;
+                }
+            }
+        }
+        return start;
+    }
+
+    /**
+     * @return a handle for the core solve, cancelled with the solve
+     */
+    private SolveHandle nextStage() {
+        SolveHandle next = new SolveHandle();
+        stage = next;
+        if (stopped) {
+            next.cancel();
+        }
+        return next;
+    }
+
+    private void stop() {
+        stopped = true;
+        SolveHandle current = stage;
+        if (current != null) {
+            current.cancel();
+        }
+    }
+}
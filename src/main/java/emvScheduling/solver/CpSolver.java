@@ -2,165 +2,688 @@ package emvScheduling.solver;
 
 import com.google.ortools.Loader;
 import com.google.ortools.sat.*;
-import emvScheduling.domain.Process;
 import emvScheduling.domain.*;
-import it.unitn.emvscheduling.greedy.domain.ExecutionOutput;
 import lombok.Getter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.Flow;
+import java.util.function.Consumer;
 
 
 public class CpSolver {
     protected final static transient Logger logger = LoggerFactory.getLogger(CpSolver.class);
     boolean useBooster = true;
     boolean useHint = true;//booster ->hint
+    private static final double STAGNATION_CHECK_INTERVAL_IN_SECONDS = 0.1;
 
     /**
      * Method to add no_overlap constraint between p1 and p2 if equ is true in the model
      *
      * @param model
+     * @param vars
      * @param p1
      * @param p2
      * @param sameComputerVar
+     * @param hintedEnds end time of each process in the hint, null if there is no hint
+     * @param hintedStarts start time of each process in the hint, null if there is no hint
      */
-    private void noOverlap(CpModel model, Process p1, Process p2, BoolVar sameComputerVar, ExecutionOutput declarativeOutput) {
+    private void noOverlap(CpModel model, SchedulingVariables vars, int p1, int p2, BoolVar sameComputerVar,
+                           int[] hintedStarts, int[] hintedEnds) {
         // sameComputerVar implies p2.start >= p1.end || p1.start >= p2.end
 
-        BoolVar v1 = model.newBoolVar("ov_" + p1.getId() + "_" + p2.getId() + "_1");
-        model.addLessOrEqual(p1.getEndTime(), p2.getStartTime()).onlyEnforceIf(v1);
-        model.addGreaterThan(p1.getEndTime(), p2.getStartTime()).onlyEnforceIf(v1.not());
+        BoolVar v1 = model.newBoolVar("ov_" + p1 + "_" + p2 + "_1");
+        model.addLessOrEqual(vars.getEnds()[p1], vars.getStarts()[p2]).onlyEnforceIf(v1);
+        model.addGreaterThan(vars.getEnds()[p1], vars.getStarts()[p2]).onlyEnforceIf(v1.not());
 
-        BoolVar v2 = model.newBoolVar("ov_" + p1.getId() + "_" + p2.getId() + "_2");
-        model.addLessOrEqual(p2.getEndTime(), p1.getStartTime()).onlyEnforceIf(v2);
-        model.addGreaterThan(p2.getEndTime(), p1.getStartTime()).onlyEnforceIf(v2.not());
+        BoolVar v2 = model.newBoolVar("ov_" + p1 + "_" + p2 + "_2");
+        model.addLessOrEqual(vars.getEnds()[p2], vars.getStarts()[p1]).onlyEnforceIf(v2);
+        model.addGreaterThan(vars.getEnds()[p2], vars.getStarts()[p1]).onlyEnforceIf(v2.not());
 
         model.addBoolOr(new BoolVar[]{v1, v2}).onlyEnforceIf(sameComputerVar);
 
-        if(useHint){
-            Boolean P1EndBeforeP2Start =
-                    declarativeOutput.processes.get(p1.getId()).endTime <=  declarativeOutput.processes.get(p2.getId()).startTime;
+        if(hintedStarts != null){
+            Boolean P1EndBeforeP2Start = hintedEnds[p1] <= hintedStarts[p2];
             model.addHint(v1, P1EndBeforeP2Start?1:0);
 
-            Boolean P2EndBeforeP1Start =
-                    declarativeOutput.processes.get(p2.getId()).endTime <=  declarativeOutput.processes.get(p1.getId()).startTime;
+            Boolean P2EndBeforeP1Start = hintedEnds[p2] <= hintedStarts[p1];
             model.addHint(v2, P2EndBeforeP1Start?1:0);
         }
     }
 
-    public SolverOutput solve(ProblemFacts facts, ExecutionSettings settings) {
-        SolverOutput solverOutput = new SolverOutput();
-        Loader.loadNativeLibraries();
-        // Computes horizon dynamically as the sum of all durations.
-        int horizon = 0;
-        for (Process process : facts.getProcesses()) {
-            horizon += process.getExecutionTime();
+    /**
+     * Method to add the constraint that conflicting processes cannot overlap
+     *
+     * @param model
+     * @param instance
+     * @param intervals interval of each process
+     * @param cover     clique cover of the conflict graph to post one no_overlap per clique of mutually conflicting
+     *                  processes instead of one per pair, may be null
+     * @return number of no_overlap constraints posted
+     */
+    static int addConflictNoOverlaps(CpModel model, ProblemInstance instance, IntervalVar[] intervals,
+                                     ConflictCliqueCover cover) {
+        if (cover != null) {
+            for (int[] clique : cover.getCliques()) {
+                List<IntervalVar> conflictingIntervals = new ArrayList<>(clique.length);
+                for (int processId : clique) {
+                    conflictingIntervals.add(intervals[processId]);
+                }
+                model.addNoOverlap(conflictingIntervals);
+            }
+            return cover.getCliques().size();
         }
-        solverOutput.setHorizon(horizon);
+        int[] offsets = instance.getConflictOffsets();
+        int[] targets = instance.getConflictTargets();
+        for (int p = 0; p < instance.getProcessCount(); p++) {
+            for (int k = offsets[p]; k < offsets[p + 1]; k++) {
+                if (targets[k] > p) {
+                    List<IntervalVar> conflictingIntervals = new ArrayList<>();
+                    conflictingIntervals.add(intervals[p]);
+                    conflictingIntervals.add(intervals[targets[k]]);
+                    model.addNoOverlap(conflictingIntervals);
+                }
+            }
+        }
+        return instance.getConflictPairCount();
+    }
 
-        // Creates the model.
-        CpModel model = new CpModel();
+    /**
+     * Method to add the pairwise formulation of "processes on the same computer cannot overlap": a sameComputer
+     * literal per pair of processes, enforcing no_overlap between them when it is true.
+     *
+     * @param model
+     * @param instance
+     * @param vars
+     * @param hintedComputers computer of each process in the hint, null if there is no hint
+     * @param hintedStarts start time of each process in the hint, null if there is no hint
+     * @param hintedEnds end time of each process in the hint, null if there is no hint
+     */
+    private void addPairwiseNoOverlap(CpModel model, ProblemInstance instance, SchedulingVariables vars,
+                                      int[] hintedComputers, int[] hintedStarts, int[] hintedEnds) {
+        for (int i = 0; i < instance.getProcessCount(); i++) {
+            for (int j = i + 1; j < instance.getProcessCount(); j++) {
+                // For all unique pairs of processes
+                // Create a boolean variable indicating whether process i and j are assigned to the same computer
+                BoolVar sameComputer = model.newBoolVar("eq_comp_" + i + "_" + j);
 
-        // Creates a solver and solves the model.
-        com.google.ortools.sat.CpSolver solver = new com.google.ortools.sat.CpSolver();
+                if (hintedComputers != null) {
+                    Boolean sameComp = hintedComputers[i] == hintedComputers[j];
+                    model.addHint(sameComputer, sameComp ? 1 : 0);
+                }
+
+                //eq_com_i_j == (pi.computer =pj.computer)
+                model.addEquality(vars.getComputers()[i], vars.getComputers()[j]).onlyEnforceIf(sameComputer);
+                model.addDifferent(vars.getComputers()[i], vars.getComputers()[j]).onlyEnforceIf(sameComputer.not());
+
+                // Enforce the no_overlap constraint if both processes are on the same computer
+                noOverlap(model, vars, i, j, sameComputer, hintedStarts, hintedEnds);
+
+                //onlyEnforceIf is not working on addNoOverlap
+                /*List<IntervalVar> intervalPairs = new ArrayList(List.of(pi.getInterval(), pj.getInterval()));
+                model.addNoOverlap(intervalPairs).onlyEnforceIf(sameComputer);*/
+            }
+        }
+    }
+
+    /**
+     * Method to add the optional interval formulation of "processes on the same computer cannot overlap": each process
+     * gets one optional interval per computer, exactly one of them is present, and each computer gets a single
+     * no_overlap over its optional intervals.
+     *
+     * @param model
+     * @param instance
+     * @param vars
+     * @param hintedComputers computer of each process in the hint, null if there is no hint
+     * @return presence literals, indexed by [process][computer]
+     */
+    private BoolVar[][] addPerComputerNoOverlap(CpModel model, ProblemInstance instance, SchedulingVariables vars,
+                                                int[] hintedComputers) {
+        int computerCount = instance.getComputerCount();
+        List<List<IntervalVar>> computerIntervals = new ArrayList<>(computerCount);
+        for (int c = 0; c < computerCount; c++) {
+            computerIntervals.add(new ArrayList<>());
+        }
+        long[] computerIds = new long[computerCount];
+        for (int c = 0; c < computerCount; c++) {
+            computerIds[c] = c;
+        }
+
+        BoolVar[][] allPresences = new BoolVar[instance.getProcessCount()][];
+        for (int p = 0; p < instance.getProcessCount(); p++) {
+            BoolVar[] presences = new BoolVar[computerCount];
+            allPresences[p] = presences;
+            for (int c = 0; c < computerCount; c++) {
+                presences[c] = model.newBoolVar("on_" + p + "_" + c);
+                computerIntervals.get(c).add(model.newOptionalFixedSizeIntervalVar(vars.getStarts()[p],
+                        instance.getDurations()[p], presences[c], "interval_" + p + "_" + c));
+            }
+            model.addExactlyOne(presences);
+            // keeps the computer variable as the single source of the assignment for hints and the printed solution
+            model.addEquality(vars.getComputers()[p], LinearExpr.weightedSum(presences, computerIds));
+
+            if (hintedComputers != null) {
+                for (int c = 0; c < computerCount; c++) {
+                    model.addHint(presences[c], c == hintedComputers[p] ? 1 : 0);
+                }
+            }
+        }
+
+        for (List<IntervalVar> intervals : computerIntervals) {
+            model.addNoOverlap(intervals);
+        }
+        return allPresences;
+    }
+
+    /**
+     * Method to add one literal per (process, computer) that is true iff the process is assigned to the computer
+     *
+     * @param model
+     * @param instance
+     * @param vars
+     * @return assignment literals, indexed by [process][computer]
+     */
+    private BoolVar[][] addAssignmentLiterals(CpModel model, ProblemInstance instance, SchedulingVariables vars) {
+        int computerCount = instance.getComputerCount();
+        BoolVar[][] assigned = new BoolVar[instance.getProcessCount()][computerCount];
+        for (int p = 0; p < instance.getProcessCount(); p++) {
+            for (int c = 0; c < computerCount; c++) {
+                BoolVar isAssigned = model.newBoolVar("assigned_" + p + "_" + c);
+                model.addEquality(vars.getComputers()[p], c).onlyEnforceIf(isAssigned);
+                model.addDifferent(vars.getComputers()[p], c).onlyEnforceIf(isAssigned.not());
+                assigned[p][c] = isAssigned;
+            }
+            model.addExactlyOne(assigned[p]);
+        }
+        return assigned;
+    }
+
+    /**
+     * Method to add constraints implied by the model that strengthen propagation and the LP relaxation: at most
+     * computerCount processes run at any time, and the load of each computer does not exceed the makespan.
+     *
+     * @param model
+     * @param instance
+     * @param vars
+     * @param assigned assignment literals, indexed by [process][computer]
+     */
+    private void addRedundantConstraints(CpModel model, ProblemInstance instance, SchedulingVariables vars,
+                                         BoolVar[][] assigned) {
+        int computerCount = instance.getComputerCount();
+        CumulativeConstraint cumulative = model.addCumulative(computerCount);
+        for (IntervalVar interval : vars.getIntervals()) {
+            cumulative.addDemand(interval, 1);
+        }
+
+        long[] durations = new long[instance.getProcessCount()];
+        for (int p = 0; p < instance.getProcessCount(); p++) {
+            durations[p] = instance.getDurations()[p];
+        }
+        for (int c = 0; c < computerCount; c++) {
+            BoolVar[] onComputer = new BoolVar[assigned.length];
+            for (int p = 0; p < assigned.length; p++) {
+                onComputer[p] = assigned[p][c];
+            }
+            model.addLessOrEqual(LinearExpr.weightedSum(onComputer, durations), vars.getMakespan());
+        }
+    }
+
+    /**
+     * @param instance
+     * @return true if the computers only differ in their id, so any permutation of the ids in a solution is an
+     * equivalent solution
+     */
+    static boolean interchangeableComputers(ProblemInstance instance) {
+        for (int c = 1; c < instance.getComputerCount(); c++) {
+            if (instance.getCostPerOperation()[c] != instance.getCostPerOperation()[0]
+                    || instance.getCostPerIdleTime()[c] != instance.getCostPerIdleTime()[0])
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Method to break the symmetry of interchangeable computers: computers are numbered by the lowest-index process
+     * assigned to them, so process 0 is on computer 0 and process i is on a computer already used by processes 0..i-1
+     * or on the next unused one.
+     *
+     * @param model
+     * @param instance
+     * @param vars
+     */
+    private void addComputerSymmetryBreaking(CpModel model, ProblemInstance instance, SchedulingVariables vars) {
+        IntVar[] computers = vars.getComputers();
+        model.addEquality(computers[0], 0);
+        // highestComputer = max(computer of processes 0..i-1)
+        IntVar highestComputer = computers[0];
+        for (int i = 1; i < computers.length; i++) {
+            model.addLessOrEqual(computers[i], LinearExpr.newBuilder().add(highestComputer).add(1).build());
+            if (i < computers.length - 1) {
+                IntVar nextHighestComputer = model.newIntVar(0, instance.getComputerCount() - 1,
+                        "highest_computer_" + i);
+                model.addMaxEquality(nextHighestComputer, new IntVar[]{highestComputer, computers[i]});
+                highestComputer = nextHighestComputer;
+            }
+        }
+    }
+
+    /**
+     * Method to break the symmetry of interchangeable processes: the processes of each twin class start in increasing
+     * index order and, unless the computers are numbered by {@link #addComputerSymmetryBreaking}, which may reorder
+     * them, equal starts are on increasing computers.
+     *
+     * @param model
+     * @param vars
+     * @param twins
+     * @param computerTieBreaking
+     */
+    private void addTwinOrdering(CpModel model, SchedulingVariables vars, TwinClasses twins,
+                                 boolean computerTieBreaking) {
+        for (int[] twinClass : twins.getClasses()) {
+            for (int k = 0; k + 1 < twinClass.length; k++) {
+                IntVar start = vars.getStarts()[twinClass[k]];
+                IntVar nextStart = vars.getStarts()[twinClass[k + 1]];
+                if (!computerTieBreaking) {
+                    model.addLessOrEqual(start, nextStart);
+                    continue;
+                }
+                BoolVar sameStart = model.newBoolVar("same_start_" + twinClass[k] + "_" + twinClass[k + 1]);
+                model.addEquality(start, nextStart).onlyEnforceIf(sameStart);
+                model.addLessThan(start, nextStart).onlyEnforceIf(sameStart.not());
+                model.addLessOrEqual(vars.getComputers()[twinClass[k]], vars.getComputers()[twinClass[k + 1]])
+                        .onlyEnforceIf(sameStart);
+            }
+        }
+    }
+
+    /**
+     * renames the computers of a hint in the order their lowest-index process appears, to be compatible with
+     * {@link #addComputerSymmetryBreaking(CpModel, ProblemInstance, SchedulingVariables)}
+     *
+     * @param hintedComputers computer of each process, renamed in place
+     * @param computerCount
+     */
+    static void canonicalizeComputers(int[] hintedComputers, int computerCount) {
+        int[] newIds = new int[computerCount];
+        Arrays.fill(newIds, -1);
+        int nextId = 0;
+        for (int p = 0; p < hintedComputers.length; p++) {
+            if (newIds[hintedComputers[p]] < 0) {
+                newIds[hintedComputers[p]] = nextId++;
+            }
+            hintedComputers[p] = newIds[hintedComputers[p]];
+        }
+    }
+
+    /**
+     * @return the output of the known schedule, returned when the search did not run or found no schedule
+     */
+    private static SolverOutput incumbentOutput(SolverOutput solverOutput, IntermediateSolution incumbent,
+                                                long solveStart, SolverOutput.StopReason stopReason) {
+        logger.info("No schedule from the search ({}), known makespan {} returned", stopReason,
+                incumbent.getMakespan());
+        solverOutput.setSolverStatus(CpSolverStatus.FEASIBLE.toString());
+        solverOutput.setStopReason(stopReason);
+        solverOutput.setBestObjectiveBound((double) solverOutput.getLowerBound());
+        solverOutput.setMakespan((double) incumbent.getMakespan());
+        solverOutput.setComputerAssignment(incumbent.getComputerAssignment());
+        solverOutput.setStartTimes(incumbent.getStartTimes());
+        solverOutput.setSolverWallTime((System.nanoTime() - solveStart) / 1e9);
+        return solverOutput;
+    }
+
+    /**
+     * keeps the solution times of a booster-hinted solve as the baseline of the instance, or reports how much sooner
+     * the solutions of a solve hinted from the memory arrived than in that baseline
+     */
+    private static void compareWithBaseline(SolverOutput solverOutput, SolutionMemory memory,
+                                            ProblemInstance instance) {
+        if ("BOOSTER".equals(solverOutput.getHintSource())) {
+            memory.rememberBaseline(instance, solverOutput.getFirstSolutionTime(),
+                    solverOutput.getFinalSolutionTime());
+        } else if (solverOutput.getHintSource() != null && solverOutput.getHintSource().startsWith("MEMORY")) {
+            SolutionMemory.Baseline baseline = memory.getBaseline(instance);
+            if (baseline != null) {
+                solverOutput.setFirstSolutionTimeSaved(baseline.getFirstSolutionTime()
+                        - solverOutput.getFirstSolutionTime());
+                solverOutput.setFinalSolutionTimeSaved(baseline.getFinalSolutionTime()
+                        - solverOutput.getFinalSolutionTime());
+                logger.info("Hint {}: first solution {} s sooner, final solution {} s sooner than hinted by the "
+                                + "booster", solverOutput.getHintSource(), solverOutput.getFirstSolutionTimeSaved(),
+                        solverOutput.getFinalSolutionTimeSaved());
+            }
+        }
+    }
 
+    /**
+     * Method to set the parameters of the native solver, shared by every configuration
+     *
+     * @param parameters
+     * @param settings
+     */
+    static void setParameters(SatParameters.Builder parameters, ExecutionSettings settings) {
         //For speed up the process:
-        solver.getParameters().setNumWorkers(settings.getNumberOfWorkers());//processors
-        solver.getParameters().setCpModelPresolve(true);// false: make the "makespan" the way worst
-        solver.getParameters().setEnumerateAllSolutions(false); // need to investigate more
-        solver.getParameters().setBinaryMinimizationAlgorithm(SatParameters.BinaryMinizationAlgorithm.BINARY_MINIMIZATION_FIRST_WITH_TRANSITIVE_REDUCTION);
-        solver.getParameters().setMaxTimeInSeconds(settings.getMaxSolverExecutionTimeInSeconds());
-//        solver.getParameters().setUsePrecedencesInDisjunctiveConstraint(true); // deteriorated the performance
-//        solver.getParameters().setSearchBranching(SatParameters.SearchBranching.PORTFOLIO_SEARCH);  // Made the
+        parameters.setNumWorkers(settings.getNumberOfWorkers());//processors
+        parameters.setCpModelPresolve(true);// false: make the "makespan" the way worst
+        parameters.setEnumerateAllSolutions(false); // need to investigate more
+        parameters.setBinaryMinimizationAlgorithm(SatParameters.BinaryMinizationAlgorithm.BINARY_MINIMIZATION_FIRST_WITH_TRANSITIVE_REDUCTION);
+        parameters.setMaxTimeInSeconds(settings.getTimeLeft().toNanos() / 1e9);
+//        parameters.setUsePrecedencesInDisjunctiveConstraint(true); // deteriorated the performance
+//        parameters.setSearchBranching(SatParameters.SearchBranching.PORTFOLIO_SEARCH);  // Made the
 //        performance better when there was no conflict
-        //solver.getParameters().setSymmetryLevel(2); // better performance in absence of it
+        //parameters.setSymmetryLevel(2); // better performance in absence of it
 
         // Force the solver to follow the decision strategy exactly.
-    //        solver.getParameters().setSearchBranching(SatParameters.SearchBranching.FIXED_SEARCH);//improves the
+    //        parameters.setSearchBranching(SatParameters.SearchBranching.FIXED_SEARCH);//improves the
         // performance in absence of conflicts (using this line, all the processes starts from zero but in absence of
         // it they don't start from zero even though there would be no conflict) but deteriorate in presence of
         // conflicting processes
-        solver.getParameters().setRandomizeSearch(true);// Enable randomization and improve the wall time for optimal solutions
-        solver.getParameters().setRandomSeed(settings.getRandomSeed()); // Set random seed for reproducibility
-        solver.getParameters().setUseLns(true);// Enable large neighborhood search: by using false value the wall time
+        parameters.setRandomizeSearch(true);// Enable randomization and improve the wall time for optimal solutions
+        parameters.setRandomSeed(settings.getRandomSeed()); // Set random seed for reproducibility
+        parameters.setUseLns(true);// Enable large neighborhood search: by using false value the wall time
         // of optimal answers are getting better and worst at times and the feasible answer for a given time is the
         // same for cases and needs further test to be decided.
 
+        // tuned parameters (see ParameterTuner) override the ones above
+        ParameterProfile.applyTo(settings.getSatParameters(), parameters);
+    }
 
-        int upperBound;
-        ExecutionOutput declarativeOutput = null;
-        if(useBooster){
-            declarativeOutput = SolverBooster.getSuggestedOutput(facts, settings);
-            upperBound = declarativeOutput.scheduleMakespan;
-        } else {
-            upperBound = horizon;
+    public SolverOutput solve(ProblemFacts facts, ExecutionSettings settings) {
+        return solve(ProblemInstance.from(facts), settings);
+    }
+
+    public SolverOutput solve(ProblemInstance instance, ExecutionSettings settings) {
+        return solve(instance, settings, null);
+    }
+
+    public SolveHandle solveAsync(ProblemFacts facts, ExecutionSettings settings,
+                                  Flow.Subscriber<? super IntermediateSolution> subscriber) {
+        return solveAsync(ProblemInstance.from(facts), settings, subscriber);
+    }
+
+    /**
+     * Method to solve in the background, publishing each improving schedule through the returned handle. The first
+     * schedule published is the booster one at time zero, repaired to satisfy the conflicts the booster does not
+     * see.
+     *
+     * @param instance
+     * @param settings
+     * @param subscriber subscribed before the solve starts, so it receives every schedule; may be null
+     * @return
+     */
+    public SolveHandle solveAsync(ProblemInstance instance, ExecutionSettings settings,
+                                  Flow.Subscriber<? super IntermediateSolution> subscriber) {
+        SolveHandle handle = new SolveHandle();
+        if (subscriber != null) {
+            handle.subscribe(subscriber);
         }
+        Thread thread = new Thread(() -> {
+            try {
+                handle.complete(solve(instance, settings, handle));
+            } catch (Throwable e) {
+                handle.completeExceptionally(e);
+            }
+        }, "cp-solver-async");
+        thread.setDaemon(true);
+        thread.start();
+        return handle;
+    }
 
-        //variable assignments:
-        for (Process process : facts.getProcesses()) {
-            process.setComputerId(model.newIntVar(0, facts.getComputers().size() - 1, "computer_" + process.getId()));
-            process.setStartTime(model.newIntVar(0, upperBound, "start_" + process.getId()));
-            process.setEndTime(model.newIntVar(0, upperBound, "end_" + process.getId()));
-            process.setInterval(model.newIntervalVar(process.getStartTime(),
-                    LinearExpr.constant(process.getExecutionTime()), process.getEndTime(), "interval_" + process.getId()));
-
-            if(useHint){
-                model.addHint(process.getComputerId(), declarativeOutput.processes.get(process.getId()).computer.computerId);
-                model.addHint(process.getStartTime(), declarativeOutput.processes.get(process.getId()).startTime);
-                model.addHint(process.getEndTime(), declarativeOutput.processes.get(process.getId()).endTime);
-//                model.addHint(process.getInterval(), declarativeOutput.processes.get(process.getId()).executionTime);
-                //todo: remove end time and interval in case of possibility from InVars
+    private SolverOutput solve(ProblemInstance instance, ExecutionSettings settings, SolveHandle handle) {
+        return solve(instance, settings, handle, null);
+    }
+
+    /**
+     * @param initial schedule known to satisfy the constraints, used by the CP_SAT engine as hint and upper bound
+     *                when it is better than the booster one; may be null
+     */
+    SolverOutput solve(ProblemInstance instance, ExecutionSettings settings, SolveHandle handle,
+                       IntermediateSolution initial) {
+        long solveStart = System.nanoTime();
+        SolverOutput solverOutput = new SolverOutput();
+        // booster, model build and native search all end by the same deadline
+        settings = settings.withDeadlineFromNow();
+        // on the copy, so the settings of the caller keep their profile file unresolved
+        ParameterProfile.applyProfileFile(settings);
+        Loader.loadNativeLibraries();
+        if (settings.isFastPaths()) {
+            SolverOutput fastPathOutput = FastPathSolver.solve(instance, settings, handle);
+            if (fastPathOutput != null) {
+                return fastPathOutput;
             }
         }
-
-        // Constraints:
-        // 1- Enforce the constraint that conflicting processes cannot overlap
-        if (facts.getConflictingProcesses() != null) {
-            for (UnorderedPair<Integer> conflictingProcesses : facts.getConflictingProcesses()) {
-                List<IntervalVar> conflictingIntervals = new ArrayList<>();
-                conflictingIntervals.add(facts.getProcess(conflictingProcesses.getI()).getInterval());
-                conflictingIntervals.add(facts.getProcess(conflictingProcesses.getJ()).getInterval());
-                model.addNoOverlap(conflictingIntervals);
+        if (settings.isConflictFreePeeling()) {
+            SolverOutput peelingOutput = new ConflictFreePeeling(this).solve(instance, settings, handle);
+            if (peelingOutput != null) {
+                return peelingOutput;
             }
         }
+        SolverOutput engineOutput = null;
+        if (settings.getEngine() == ExecutionSettings.Engine.DECOMPOSITION) {
+            engineOutput = new DecompositionSolver().solve(instance, settings, handle);
+        } else if (settings.getEngine() == ExecutionSettings.Engine.LNS) {
+            engineOutput = new LnsSolver().solve(instance, settings, handle);
+        } else if (settings.getEngine() == ExecutionSettings.Engine.SHARDING) {
+            engineOutput = new ShardingSolver(this).solve(instance, settings, handle);
+        } else if (settings.getEngine() == ExecutionSettings.Engine.MULTILEVEL) {
+            engineOutput = new MultilevelSolver(this).solve(instance, settings, handle);
+        }
+        if (engineOutput != null) {
+            engineOutput.setRoute(SolverOutput.Route.MODEL);
+            return engineOutput;
+        }
+        solverOutput.setEngine(settings.getEngine().name());
+        solverOutput.setRoute(SolverOutput.Route.MODEL);
+        // Computes horizon dynamically as the sum of all durations.
+        int horizon = (int) instance.getTotalDuration();
+        solverOutput.setHorizon(horizon);
 
-        // 2- Enforce the constraint that processes on the same computer cannot overlap
-        for (int i = 0; i < facts.getProcesses().size(); i++) {
-            for (int j = i + 1; j < facts.getProcesses().size(); j++) {
-                // For all unique pairs of processes
-                // Create a boolean variable indicating whether process i and j are assigned to the same computer
-                Process pi = facts.getProcesses().get(i);
-                Process pj = facts.getProcesses().get(j);
-                BoolVar sameComputer = model.newBoolVar("eq_comp_" + i + "_" + j);
+        // Creates the model.
+        CpModel model = new CpModel();
 
-                if (useHint) {
-                    Boolean sameComp =
-                            declarativeOutput.processes.get(i).computer.computerId == declarativeOutput.processes.get(j).computer.computerId;
-                    model.addHint(sameComputer, sameComp ? 1 : 0);
+        // Creates a solver and solves the model.
+        com.google.ortools.sat.CpSolver solver = new com.google.ortools.sat.CpSolver();
+
+        setParameters(solver.getParameters(), settings);
+
+        ConflictCliqueCover cover = null;
+        if (instance.getConflictPairCount() > 0) {
+            cover = ConflictCliqueCover.cover(instance, settings);
+        }
+        MakespanLowerBound lowerBound = MakespanLowerBound.compute(instance, cover);
+        int lowerBoundValue = lowerBound.getValue();
+        logger.trace("{}", lowerBound);
+
+        int upperBound = horizon;
+        // schedule hinted to the solver, and the best schedule known to satisfy the constraints
+        int[] hintComputers = null;
+        int[] hintStarts = null;
+        long hintMakespan = 0;
+        IntermediateSolution incumbent = null;
+        if(useBooster){
+            // repaired to satisfy the conflicts the booster does not see, so it is also an upper bound
+            SolverBooster.Suggestion suggestion = SolverBooster.getBestSuggestion(instance, settings);
+            hintComputers = suggestion.getComputers();
+            hintStarts = suggestion.getStartTimes();
+            hintMakespan = suggestion.getMakespan();
+            solverOutput.setHintSource("BOOSTER");
+            solverOutput.setBoosterStrategy(suggestion.getStrategy());
+            incumbent = new IntermediateSolution(hintComputers, hintStarts, hintMakespan, lowerBoundValue, 0);
+        }
+        if (settings.isFastPaths() && instance.getConflictPairCount() == 0) {
+            // the no-conflict fast path did not prove its schedule optimal, but it is usually close
+            IntermediateSolution packed = FastPathSolver.noConflictSchedule(instance);
+            if (incumbent == null || packed.getMakespan() < incumbent.getMakespan()) {
+                incumbent = new IntermediateSolution(packed.getComputerAssignment(), packed.getStartTimes(),
+                        packed.getMakespan(), lowerBoundValue, 0);
+                hintComputers = packed.getComputerAssignment();
+                hintStarts = packed.getStartTimes();
+                hintMakespan = packed.getMakespan();
+                solverOutput.setHintSource("FAST_PATH");
+            }
+        }
+        if (initial != null && (incumbent == null || initial.getMakespan() < incumbent.getMakespan())) {
+            incumbent = new IntermediateSolution(initial.getComputerAssignment(), initial.getStartTimes(),
+                    initial.getMakespan(), lowerBoundValue, 0);
+            hintComputers = initial.getComputerAssignment();
+            hintStarts = initial.getStartTimes();
+            hintMakespan = initial.getMakespan();
+            solverOutput.setHintSource("INITIAL");
+        }
+        SolutionMemory memory = null;
+        if (settings.getSolutionMemoryDir() != null) {
+            memory = new SolutionMemory(Paths.get(settings.getSolutionMemoryDir()));
+            SolutionMemory.Recall recall = memory.recall(instance);
+            if (recall != null) {
+                IntermediateSolution remembered = recall.getSolution();
+                if (!recall.isRepaired()) {
+                    lowerBoundValue = Math.max(lowerBoundValue, (int) Math.ceil(remembered.getBound() - 1e-6));
                 }
+                if (incumbent == null || remembered.getMakespan() < incumbent.getMakespan()) {
+                    logger.info("Hint from the solution memory: makespan {}, found after {} s",
+                            remembered.getMakespan(), remembered.getWallTime());
+                    incumbent = remembered;
+                    hintComputers = remembered.getComputerAssignment();
+                    hintStarts = remembered.getStartTimes();
+                    hintMakespan = remembered.getMakespan();
+                    solverOutput.setHintSource(recall.isRepaired() ? "MEMORY_REPAIRED" : "MEMORY");
+                }
+            }
+        }
+        if (settings.isRestartFromCheckpoint() && settings.getCheckpointFile() != null) {
+            IntermediateSolution checkpoint = Checkpoint.read(Paths.get(settings.getCheckpointFile()), instance);
+            if (checkpoint != null) {
+                // the bound was proven for the same instance
+                lowerBoundValue = Math.max(lowerBoundValue, (int) Math.ceil(checkpoint.getBound() - 1e-6));
+                if (incumbent == null || checkpoint.getMakespan() < incumbent.getMakespan()) {
+                    logger.info("Restarting from the checkpoint makespan {}, bound {}", checkpoint.getMakespan(),
+                            checkpoint.getBound());
+                    incumbent = checkpoint;
+                    hintComputers = checkpoint.getComputerAssignment();
+                    hintStarts = checkpoint.getStartTimes();
+                    hintMakespan = checkpoint.getMakespan();
+                    solverOutput.setHintSource("CHECKPOINT");
+                }
+            }
+        }
+        solverOutput.setLowerBound(lowerBoundValue);
+        if (incumbent != null) {
+            upperBound = (int) incumbent.getMakespan();
+            if (handle != null) {
+                handle.onSolution(new IntermediateSolution(incumbent.getComputerAssignment(),
+                        incumbent.getStartTimes(), upperBound, lowerBoundValue, 0));
+            }
+            if (upperBound <= lowerBoundValue) {
+                // the known schedule is already proven optimal, no need to search
+                logger.trace("Known makespan {} reached the lower bound, CP-SAT skipped", upperBound);
+                solverOutput.setSolverStatus(CpSolverStatus.OPTIMAL.toString());
+                solverOutput.setStopReason(SolverOutput.StopReason.LOWER_BOUND_REACHED);
+                solverOutput.setMakespan((double) upperBound);
+                solverOutput.setComputerAssignment(incumbent.getComputerAssignment());
+                solverOutput.setStartTimes(incumbent.getStartTimes());
+                solverOutput.setSolverWallTime((System.nanoTime() - solveStart) / 1e9);
+                return solverOutput;
+            }
+        }
 
-                //eq_com_i_j == (pi.computer =pj.computer)
-                model.addEquality(pi.getComputerId(), pj.getComputerId()).onlyEnforceIf(sameComputer);
-                model.addDifferent(pi.getComputerId(), pj.getComputerId()).onlyEnforceIf(sameComputer.not());
+        boolean computerSymmetryBreaking = settings.isComputerSymmetryBreaking()
+                && instance.getProcessCount() > 0 && interchangeableComputers(instance);
+        solverOutput.setComputerSymmetryBreaking(computerSymmetryBreaking);
+        TwinClasses twins = null;
+        // twin detection is optional, skipped once the booster or the cover used up the time
+        if (settings.isTwinOrdering() && !settings.getTimeLeft().isZero()) {
+            twins = TwinClasses.compute(instance);
+            solverOutput.setTwinClassCount(twins.getClasses().size());
+            solverOutput.setTwinProcessCount(twins.getProcessCount());
+            logger.info("Twin classes: {} classes of {} processes", twins.getClasses().size(),
+                    twins.getProcessCount());
+            if (logger.isTraceEnabled()) {
+                for (int[] twinClass : twins.getClasses()) {
+                    logger.trace("Twin class {}", Arrays.toString(twinClass));
+                }
+            }
+        }
+        if (incumbent != null && settings.getTimeLeft().isZero()) {
+            return incumbentOutput(solverOutput, incumbent, solveStart, SolverOutput.StopReason.TIME_LIMIT);
+        }
 
-                // Enforce the no_overlap constraint if both processes are on the same computer
-                noOverlap(model, pi, pj, sameComputer, declarativeOutput);
+        boolean hinted = useHint && hintStarts != null;
+        int[] hintedComputers = null;
+        int[] hintedStarts = null;
+        int[] hintedEnds = null;
+        if (hinted) {
+            hintedComputers = hintComputers.clone();
+            hintedStarts = hintStarts.clone();
+            // twins first: renaming the computers keeps the start order
+            if (twins != null) {
+                twins.canonicalize(hintedComputers, hintedStarts);
+            }
+            if (computerSymmetryBreaking) {
+                canonicalizeComputers(hintedComputers, instance.getComputerCount());
+            }
+            hintedEnds = new int[instance.getProcessCount()];
+            for (int p = 0; p < instance.getProcessCount(); p++) {
+                hintedEnds[p] = hintedStarts[p] + instance.getDurations()[p];
+            }
+        }
 
-                //onlyEnforceIf is not working on addNoOverlap
-                /*List<IntervalVar> intervalPairs = new ArrayList(List.of(pi.getInterval(), pj.getInterval()));
-                model.addNoOverlap(intervalPairs).onlyEnforceIf(sameComputer);*/
+        long modelBuildStart = System.nanoTime();
+        //variable assignments:
+        SchedulingVariables vars = new SchedulingVariables(instance.getProcessCount());
+        for (int p = 0; p < instance.getProcessCount(); p++) {
+            vars.getComputers()[p] = model.newIntVar(0, instance.getComputerCount() - 1, "computer_" + p);
+            vars.getStarts()[p] = model.newIntVar(0, upperBound, "start_" + p);
+            vars.getEnds()[p] = model.newIntVar(0, upperBound, "end_" + p);
+            vars.getIntervals()[p] = model.newIntervalVar(vars.getStarts()[p],
+                    LinearExpr.constant(instance.getDurations()[p]), vars.getEnds()[p], "interval_" + p);
+
+            if(hinted){
+                model.addHint(vars.getComputers()[p], hintedComputers[p]);
+                model.addHint(vars.getStarts()[p], hintedStarts[p]);
+                model.addHint(vars.getEnds()[p], hintedEnds[p]);
+//                model.addHint(vars.getIntervals()[p], instance.getDurations()[p]);
+                //todo: remove end time and interval in case of possibility from InVars
             }
         }
+
+        // Constraints:
+        // 1- Enforce the constraint that conflicting processes cannot overlap
+        solverOutput.setConflictPairCount(instance.getConflictPairCount());
+        solverOutput.setConflictConstraintCount(addConflictNoOverlaps(model, instance, vars.getIntervals(),
+                settings.isConflictCliqueCover() ? cover : null));
+
+        // 2- Enforce the constraint that processes on the same computer cannot overlap
+        BoolVar[][] assigned = null;
+        if (settings.getModelType() == ExecutionSettings.ModelType.OPTIONAL_INTERVAL) {
+            assigned = addPerComputerNoOverlap(model, instance, vars, hintedComputers);
+        } else {
+            addPairwiseNoOverlap(model, instance, vars, hintedComputers, hintedStarts, hintedEnds);
+        }
+        // 3- Break the symmetry of interchangeable computers
+        if (computerSymmetryBreaking) {
+            addComputerSymmetryBreaking(model, instance, vars);
+        }
+        // 4- Order the processes of each twin class
+        if (twins != null) {
+            addTwinOrdering(model, vars, twins, !computerSymmetryBreaking);
+        }
+
         //Objective: Weighted sum of Makespan and cost
-        IntVar maximumProcessEndTime = model.newIntVar(0, upperBound, "makespan");
-        List<IntVar> ends = new ArrayList<>();
-        for (Process process : facts.getProcesses()) {
-            ends.add(process.getEndTime());
+        IntVar maximumProcessEndTime = model.newIntVar(Math.min(lowerBoundValue, upperBound), upperBound,
+                "makespan");
+        model.addMaxEquality(maximumProcessEndTime, vars.getEnds());
+        vars.setMakespan(maximumProcessEndTime);
+        if (settings.isRedundantConstraints()) {
+            if (assigned == null) {
+                assigned = addAssignmentLiterals(model, instance, vars);
+            }
+            addRedundantConstraints(model, instance, vars, assigned);
         }
-        model.addMaxEquality(maximumProcessEndTime, ends);
-        if(useHint){
-            model.addHint(maximumProcessEndTime, declarativeOutput.scheduleMakespan);
+        if(hinted){
+            model.addHint(maximumProcessEndTime, hintMakespan);
         }
 
 //        -----------------
@@ -208,14 +731,118 @@ public class CpSolver {
 
         */
 
-        if (facts.getTimeWeight() == 100) {
+        if (instance.getTimeWeight() == 100) {
             model.minimize(maximumProcessEndTime);
         } else {
             logger.error("todo");
         }
 
-        CpSolverStatus status = solver.solve(model);
+        solverOutput.setModelType(settings.getModelType().name());
+        solverOutput.setModelBuildTime((System.nanoTime() - modelBuildStart) / 1e9);
+        solverOutput.setModelVariableCount(model.getBuilder().getVariablesCount());
+        solverOutput.setModelConstraintCount(model.getBuilder().getConstraintsCount());
+        solverOutput.setModelHeapUsage(Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory());
+        logger.info("Model {} built in {} s: {} variables, {} constraints, {} bytes of heap in use",
+                solverOutput.getModelType(), solverOutput.getModelBuildTime(), solverOutput.getModelVariableCount(),
+                solverOutput.getModelConstraintCount(), solverOutput.getModelHeapUsage());
+        logger.info("Conflicts: {} pairs posted as {} no_overlap constraints, compression ratio {}",
+                solverOutput.getConflictPairCount(), solverOutput.getConflictConstraintCount(),
+                solverOutput.getConflictCompressionRatio());
+
+        // loading the model takes about as long as building it, so the search would not beat the known schedule
+        Duration timeLeft = settings.getTimeLeft();
+        if (incumbent != null && timeLeft.toNanos() < System.nanoTime() - modelBuildStart) {
+            return incumbentOutput(solverOutput, incumbent, solveStart, SolverOutput.StopReason.TIME_LIMIT);
+        }
+        solver.getParameters().setMaxTimeInSeconds(timeLeft.toNanos() / 1e9);
+
+        long searchStart = System.nanoTime();
+        CheckpointWriter checkpointWriter = null;
+        if (settings.getCheckpointFile() != null) {
+            checkpointWriter = new CheckpointWriter(Paths.get(settings.getCheckpointFile()), instance,
+                    settings.getCheckpointIntervalInMillis());
+            if (incumbent != null) {
+                checkpointWriter.onSolution(incumbent);
+            }
+        }
+        CheckpointWriter boundCheckpointWriter = checkpointWriter;
+        Consumer<Double> boundCallback = bound -> {
+            if (solverOutput.getFirstBoundImprovementTime() == null) {
+                solverOutput.setFirstBoundImprovementTime((System.nanoTime() - searchStart) / 1e9);
+            }
+            if (boundCheckpointWriter != null) {
+                boundCheckpointWriter.onBound(bound);
+            }
+        };
+        PortfolioRace race = null;
+        Runnable stopSearch;
+        if (settings.isPortfolioRace()) {
+            race = new PortfolioRace(model, vars, ParameterProfile.byNames(settings.getRaceProfiles()), settings);
+            stopSearch = race::stopSearch;
+        } else {
+            stopSearch = solver::stopSearch;
+        }
+        List<IntermediateSolutionListener> listeners = new ArrayList<>();
+        listeners.add(solution -> {
+            double time = (System.nanoTime() - searchStart) / 1e9;
+            if (solverOutput.getFirstSolutionTime() == null) {
+                solverOutput.setFirstSolutionTime(time);
+            }
+            solverOutput.setFinalSolutionTime(time);
+        });
+        if (handle != null) {
+            listeners.add(handle);
+            handle.attach(stopSearch);
+        }
+        StagnationStopController stagnationStop = null;
+        if (settings.isStagnationStop()) {
+            stagnationStop = new StagnationStopController(stopSearch, settings.getMakespanUnitsPerSecond(),
+                    settings.getStagnationWindowInMillis() / 1000.0, STAGNATION_CHECK_INTERVAL_IN_SECONDS);
+            listeners.add(stagnationStop);
+        }
+        if (checkpointWriter != null) {
+            listeners.add(checkpointWriter);
+        }
+        CpSolverStatus status;
+        try {
+            if (race != null) {
+                status = race.solve(listeners, boundCallback);
+                // the winner solved a clone with the same variable indices, so it reads the original variables
+                solver = race.getWinnerSolver();
+                solverOutput.setRaceWinner(race.getWinnerProfile().getName());
+            } else {
+                solver.setBestBoundCallback(boundCallback);
+                IntermediateSolutionCallback callback = new IntermediateSolutionCallback(vars);
+                listeners.forEach(callback::addListener);
+                status = solver.solve(model, callback);
+            }
+        } finally {
+            if (stagnationStop != null) {
+                stagnationStop.close();
+            }
+            if (checkpointWriter != null) {
+                checkpointWriter.close();
+            }
+        }
         solverOutput.setSolverStatus(status.toString());
+        if (status == CpSolverStatus.OPTIMAL) {
+            solverOutput.setStopReason(SolverOutput.StopReason.OPTIMAL);
+        } else if (status == CpSolverStatus.INFEASIBLE) {
+            solverOutput.setStopReason(SolverOutput.StopReason.INFEASIBLE);
+        } else if (status == CpSolverStatus.MODEL_INVALID) {
+            solverOutput.setStopReason(SolverOutput.StopReason.MODEL_INVALID);
+        } else if (handle != null && handle.isCancelled()) {
+            solverOutput.setStopReason(SolverOutput.StopReason.CANCELLED);
+        } else if (stagnationStop != null && stagnationStop.isStopped()) {
+            solverOutput.setStopReason(SolverOutput.StopReason.STAGNATION);
+        } else {
+            solverOutput.setStopReason(SolverOutput.StopReason.TIME_LIMIT);
+        }
+        if (status != CpSolverStatus.OPTIMAL && status != CpSolverStatus.FEASIBLE && incumbent != null) {
+            // the known schedule satisfies the constraints whatever the search did not prove
+            logger.trace("No solution found, status = " + status);
+            return incumbentOutput(solverOutput, incumbent, solveStart, solverOutput.getStopReason());
+        }
         if (status == CpSolverStatus.OPTIMAL || status == CpSolverStatus.FEASIBLE) {
             // Print the solution:
 
@@ -256,15 +883,21 @@ public class CpSolver {
             logger.trace("Solution:");
             // Create one list of assigned processes per computer.
             Map<Integer, List<AssignedProcess>> computerToProcesses = new HashMap<>();
-            for (Process process : facts.getProcesses()) {
-                AssignedProcess assignedProcess = new AssignedProcess(((Long) solver.value(process.getComputerId())).intValue(),
-                        process.getId(), ((Long) solver.value(process.getStartTime())).intValue(), process.getExecutionTime());
+            int[] computerAssignment = new int[instance.getProcessCount()];
+            int[] startTimes = new int[instance.getProcessCount()];
+            for (int p = 0; p < instance.getProcessCount(); p++) {
+                AssignedProcess assignedProcess = new AssignedProcess(((Long) solver.value(vars.getComputers()[p])).intValue(),
+                        p, ((Long) solver.value(vars.getStarts()[p])).intValue(), instance.getDurations()[p]);
                 computerToProcesses.computeIfAbsent(assignedProcess.getComputerId(), (k) -> new ArrayList<>()).add(assignedProcess);
+                computerAssignment[p] = assignedProcess.getComputerId();
+                startTimes[p] = assignedProcess.getStart();
             }
+            solverOutput.setComputerAssignment(computerAssignment);
+            solverOutput.setStartTimes(startTimes);
 
             // Create per computer output lines.
             String output = "";
-            for (int computer = 0; computer < facts.getComputers().size(); computer++) {
+            for (int computer = 0; computer < instance.getComputerCount(); computer++) {
                 String solLineProcesses = "Computer " + computer + ": ";
                 String solLine = "           ";
                 if (computerToProcesses.get(computer) != null) {
@@ -282,8 +915,8 @@ public class CpSolver {
                 output += solLine + System.lineSeparator();
             }
             logger.trace("Optimal objective value: {} out of {}", solver.objectiveValue(), horizon);
-            logger.trace("   Time: {}, timeWeight: {}", solver.value(maximumProcessEndTime), facts.getTimeWeight());
-            logger.trace("   Cost: {}, costWeight: {}", "-", facts.getCostWeight());
+            logger.trace("   Time: {}, timeWeight: {}", solver.value(maximumProcessEndTime), instance.getTimeWeight());
+            logger.trace("   Cost: {}, costWeight: {}", "-", instance.getCostWeight());
             logger.trace(System.lineSeparator() + output);
         } else if (status == CpSolverStatus.INFEASIBLE) {
             logger.trace("Infeasible");
@@ -307,12 +940,32 @@ public class CpSolver {
 //        logger.trace("Solver Response:" + solver.response());
 //        logger.trace("Solver getParameters:" + solver.getParameters());
 
-        solverOutput.setSolverWallTime(solver.wallTime());
-        if (facts.getTimeWeight() == 100) {
-            solverOutput.setMakespan(solver.objectiveValue());
+        // from the start of the solve, so the booster, the clique cover, the twins and the model build are paid for in
+        // parallelTimeSum as on the other routes, not only the native search
+        solverOutput.setSolverWallTime((System.nanoTime() - solveStart) / 1e9);
+        if (race != null) {
+            solverOutput.setBestObjectiveBound(race.getBestBound());
         } else {
+            solverOutput.setBestObjectiveBound(solver.bestObjectiveBound());
+        }
+        if (instance.getTimeWeight() != 100) {
             throw new RuntimeException("not supported yet");
         }
+        // without a schedule the objective value does not describe one
+        if (solverOutput.getComputerAssignment() != null) {
+            solverOutput.setMakespan(solver.objectiveValue());
+        }
+        if (memory != null && solverOutput.getComputerAssignment() != null) {
+            memory.remember(instance, new IntermediateSolution(solverOutput.getComputerAssignment(),
+                    solverOutput.getStartTimes(), solverOutput.getMakespan().longValue(),
+                    solverOutput.getBestObjectiveBound(), solverOutput.getFinalSolutionTime() == null ? 0 :
+                    solverOutput.getFinalSolutionTime()));
+        }
+        if (memory != null && solverOutput.getFirstSolutionTime() != null) {
+            compareWithBaseline(solverOutput, memory, instance);
+        }
+        logger.info("Hint {}: first solution after {} s, final solution after {} s", solverOutput.getHintSource(),
+                solverOutput.getFirstSolutionTime(), solverOutput.getFinalSolutionTime());
         return solverOutput;
     }
 }
@@ -0,0 +1,382 @@
+package emvScheduling.solver;
+
+import com.google.ortools.sat.*;
+import emvScheduling.domain.ExecutionSettings;
+import emvScheduling.domain.IntermediateSolution;
+import emvScheduling.domain.ProblemInstance;
+import emvScheduling.domain.SolverOutput;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * logic-based Benders decomposition of the schedule, for instances where the joint model decides too many pairs at
+ * once:
+ * <ol>
+ *     <li>master: an assignment model deciding only the computer of each process, minimizing the highest computer
+ *     load and then the conflicting pairs split over different computers (they wait on each other across
+ *     computers)</li>
+ *     <li>subproblem: the sequencing of the fixed assignment, with one no_overlap per computer and the conflict
+ *     no_overlaps, asked for a makespan below the incumbent</li>
+ * </ol>
+ * The first assignment is the booster one. Once sequenced, an assignment is removed from the master by a no-good cut
+ * (with all its renamings, when the computers are interchangeable). The incumbent is optimal when the master has no
+ * assignment left, or its load bound meets the incumbent. A cut is proven only if its sequencing was solved to
+ * optimality; otherwise the search goes on without an optimality proof.
+ */
+public class DecompositionSolver {
+    protected final static transient Logger logger = LoggerFactory.getLogger(DecompositionSolver.class);
+
+    // above this number of (conflicting pair, computer) terms, the master balances the load only
+    private static final int MAX_SPLIT_TERMS = 100_000;
+
+    private volatile boolean stopped;
+    private volatile com.google.ortools.sat.CpSolver running;
+
+    public SolverOutput solve(ProblemInstance instance, ExecutionSettings settings, SolveHandle handle) {
+        long solveStart = System.nanoTime();
+        long deadline = solveStart + settings.getTimeLeft().toNanos();
+        double subproblemTimeLimit = settings.getDecompositionSubproblemTimeLimitInMillis() / 1000.0;
+        SolverOutput solverOutput = new SolverOutput();
+        solverOutput.setEngine(ExecutionSettings.Engine.DECOMPOSITION.name());
+        solverOutput.setHorizon((int) instance.getTotalDuration());
+        solverOutput.setConflictPairCount(instance.getConflictPairCount());
+        if (handle != null) {
+            handle.attach(this::stop);
+        }
+
+        ConflictCliqueCover cover = null;
+        if (instance.getConflictPairCount() > 0) {
+            cover = ConflictCliqueCover.cover(instance, settings);
+        }
+        ConflictCliqueCover conflictCover = settings.isConflictCliqueCover() ? cover : null;
+        int lowerBound = MakespanLowerBound.compute(instance, cover).getValue();
+        solverOutput.setLowerBound(lowerBound);
+
+        SolverBooster.Suggestion suggestion = SolverBooster.getBestSuggestion(instance, settings);
+        solverOutput.setHintSource("BOOSTER");
+        solverOutput.setBoosterStrategy(suggestion.getStrategy());
+        IntermediateSolution incumbent = new IntermediateSolution(suggestion.getComputers(),
+                suggestion.getStartTimes(), suggestion.getMakespan(), lowerBound, 0);
+        if (handle != null) {
+            handle.onSolution(incumbent);
+        }
+
+        AssignmentModel master = null;
+        int[] assignment = incumbent.getComputerAssignment();
+        boolean proven = true;
+        boolean optimal = incumbent.getMakespan() <= lowerBound;
+        int iterations = 0;
+        while (!optimal && !stopped) {
+            double remaining = (deadline - System.nanoTime()) / 1e9;
+            if (remaining <= 0)
+                break;
+            iterations++;
+
+            // 2- sequencing of the assignment, started from the incumbent order
+            IntermediateSolution repaired = SolutionMemory.repair(instance, new IntermediateSolution(assignment,
+                    incumbent.getStartTimes(), incumbent.getMakespan(), 0, 0));
+            if (repaired.getMakespan() < incumbent.getMakespan()) {
+                incumbent = improve(solverOutput, handle, repaired, lowerBound, solveStart);
+            }
+            com.google.ortools.sat.CpSolver solver = newSolver(settings, Math.min(remaining, subproblemTimeLimit));
+            CpModel sequencing = new CpModel();
+            IntVar[] starts = addSequencing(sequencing, instance, conflictCover, assignment,
+                    repaired.getStartTimes(), lowerBound, (int) incumbent.getMakespan() - 1);
+            CpSolverStatus status = solve(solver, sequencing);
+            if (status == CpSolverStatus.OPTIMAL || status == CpSolverStatus.FEASIBLE) {
+                int[] startTimes = new int[starts.length];
+                for (int p = 0; p < starts.length; p++) {
+                    startTimes[p] = (int) solver.value(starts[p]);
+                }
+                incumbent = improve(solverOutput, handle, new IntermediateSolution(assignment, startTimes,
+                        (long) solver.objectiveValue(), lowerBound, 0), lowerBound, solveStart);
+            }
+            proven &= status == CpSolverStatus.OPTIMAL || status == CpSolverStatus.INFEASIBLE;
+            logger.trace("Iteration {}: sequencing {}, makespan {}", iterations, status, incumbent.getMakespan());
+            if (incumbent.getMakespan() <= lowerBound) {
+                optimal = true;
+                break;
+            }
+
+            // 1- next assignment from the master, without the assignments sequenced so far
+            if (master == null) {
+                master = new AssignmentModel(instance, CpSolver.interchangeableComputers(instance));
+            }
+            master.addNoGood(assignment);
+            remaining = (deadline - System.nanoTime()) / 1e9;
+            if (remaining <= 0 || stopped)
+                break;
+            solver = newSolver(settings, Math.min(remaining, subproblemTimeLimit));
+            status = master.solve(this, solver, (int) incumbent.getMakespan() - 1, incumbent.getComputerAssignment());
+            if (status == CpSolverStatus.INFEASIBLE) {
+                // no assignment left that could beat the incumbent
+                optimal = proven;
+                break;
+            }
+            if (status != CpSolverStatus.OPTIMAL && status != CpSolverStatus.FEASIBLE)
+                break;
+            if (proven) {
+                lowerBound = Math.max(lowerBound, master.getLoadBound(solver));
+                if (incumbent.getMakespan() <= lowerBound) {
+                    optimal = true;
+                    break;
+                }
+            }
+            assignment = master.getAssignment(solver);
+        }
+
+        if (optimal) {
+            lowerBound = (int) incumbent.getMakespan();
+        }
+        solverOutput.setDecompositionIterations(iterations);
+        solverOutput.setSolverStatus((optimal ? CpSolverStatus.OPTIMAL : CpSolverStatus.FEASIBLE).toString());
+        if (optimal) {
+            solverOutput.setStopReason(iterations == 0 ? SolverOutput.StopReason.LOWER_BOUND_REACHED :
+                    SolverOutput.StopReason.OPTIMAL);
+        } else if (stopped) {
+            solverOutput.setStopReason(SolverOutput.StopReason.CANCELLED);
+        } else {
+            solverOutput.setStopReason(SolverOutput.StopReason.TIME_LIMIT);
+        }
+        solverOutput.setBestObjectiveBound((double) lowerBound);
+        solverOutput.setMakespan((double) incumbent.getMakespan());
+        solverOutput.setComputerAssignment(incumbent.getComputerAssignment());
+        solverOutput.setStartTimes(incumbent.getStartTimes());
+        solverOutput.setSolverWallTime((System.nanoTime() - solveStart) / 1e9);
+        logger.info("Decomposition: {} iterations, makespan {}, bound {}, {}", iterations, incumbent.getMakespan(),
+                lowerBound, proven ? "cuts proven" : "some cuts unproven");
+        return solverOutput;
+    }
+
+    private IntermediateSolution improve(SolverOutput solverOutput, SolveHandle handle, IntermediateSolution solution,
+                                         int lowerBound, long solveStart) {
+        double time = (System.nanoTime() - solveStart) / 1e9;
+        IntermediateSolution improved = new IntermediateSolution(solution.getComputerAssignment(),
+                solution.getStartTimes(), solution.getMakespan(), lowerBound, time);
+        if (solverOutput.getFirstSolutionTime() == null) {
+            solverOutput.setFirstSolutionTime(time);
+        }
+        solverOutput.setFinalSolutionTime(time);
+        if (handle != null) {
+            handle.onSolution(improved);
+        }
+        return improved;
+    }
+
+    static com.google.ortools.sat.CpSolver newSolver(ExecutionSettings settings, double timeLimit) {
+        com.google.ortools.sat.CpSolver solver = new com.google.ortools.sat.CpSolver();
+        CpSolver.setParameters(solver.getParameters(), settings);
+        solver.getParameters().setMaxTimeInSeconds(timeLimit);
+        return solver;
+    }
+
+    private CpSolverStatus solve(com.google.ortools.sat.CpSolver solver, CpModel model) {
+        running = solver;
+        try {
+            if (stopped)
+                return CpSolverStatus.UNKNOWN;
+            return solver.solve(model);
+        } finally {
+            running = null;
+        }
+    }
+
+    private void stop() {
+        stopped = true;
+        com.google.ortools.sat.CpSolver solver = running;
+        if (solver != null) {
+            solver.stopSearch();
+        }
+    }
+
+    /**
+     * Method to add the sequencing of a fixed assignment: one no_overlap per computer, the conflict no_overlaps and
+     * the makespan as objective
+     *
+     * @param model
+     * @param instance
+     * @param cover        clique cover to post the conflicts by clique, may be null
+     * @param assignment   computer of each process
+     * @param hintedStarts start time of each process in a schedule of the assignment
+     * @param lowerBound
+     * @param upperBound   highest makespan accepted
+     * @return start time variable of each process
+     */
+    static IntVar[] addSequencing(CpModel model, ProblemInstance instance, ConflictCliqueCover cover,
+                                  int[] assignment, int[] hintedStarts, int lowerBound, int upperBound) {
+        int processCount = instance.getProcessCount();
+        int[] durations = instance.getDurations();
+        IntVar[] starts = new IntVar[processCount];
+        IntVar[] ends = new IntVar[processCount];
+        IntervalVar[] intervals = new IntervalVar[processCount];
+        List<List<IntervalVar>> computerIntervals = new ArrayList<>(instance.getComputerCount());
+        for (int c = 0; c < instance.getComputerCount(); c++) {
+            computerIntervals.add(new ArrayList<>());
+        }
+        for (int p = 0; p < processCount; p++) {
+            starts[p] = model.newIntVar(0, Math.max(0, upperBound - durations[p]), "start_" + p);
+            ends[p] = model.newIntVar(durations[p], Math.max(durations[p], upperBound), "end_" + p);
+            intervals[p] = model.newIntervalVar(starts[p], LinearExpr.constant(durations[p]), ends[p],
+                    "interval_" + p);
+            computerIntervals.get(assignment[p]).add(intervals[p]);
+            if (hintedStarts != null) {
+                model.addHint(starts[p], hintedStarts[p]);
+            }
+        }
+        for (List<IntervalVar> onComputer : computerIntervals) {
+            model.addNoOverlap(onComputer);
+        }
+        CpSolver.addConflictNoOverlaps(model, instance, intervals, cover);
+
+        IntVar makespan = model.newIntVar(Math.min(lowerBound, upperBound), upperBound, "makespan");
+        model.addMaxEquality(makespan, ends);
+        model.minimize(makespan);
+        return starts;
+    }
+
+    /**
+     * master of the decomposition: the computer of each process, the highest computer load and the conflicting pairs
+     * split over different computers. Interchangeable computers are numbered in the order of their first process, so
+     * one no-good cut removes all the renamings of an assignment.
+     */
+    private static class AssignmentModel {
+        private final CpModel model = new CpModel();
+        private final int processCount;
+        private final int computerCount;
+        private final boolean interchangeable;
+        private final BoolVar[][] assigned;
+        private final IntVar maxLoad;
+        private final long loadWeight;
+
+        AssignmentModel(ProblemInstance instance, boolean interchangeable) {
+            this.processCount = instance.getProcessCount();
+            this.computerCount = instance.getComputerCount();
+            this.interchangeable = interchangeable;
+            int[] durations = instance.getDurations();
+            long[] weights = new long[processCount];
+            int longest = 0;
+            for (int p = 0; p < processCount; p++) {
+                weights[p] = durations[p];
+                longest = Math.max(longest, durations[p]);
+            }
+            long averageLoad = (instance.getTotalDuration() + computerCount - 1) / computerCount;
+
+            assigned = new BoolVar[processCount][computerCount];
+            for (int p = 0; p < processCount; p++) {
+                for (int c = 0; c < computerCount; c++) {
+                    assigned[p][c] = model.newBoolVar("assigned_" + p + "_" + c);
+                }
+                model.addExactlyOne(assigned[p]);
+            }
+            maxLoad = model.newIntVar(Math.max(averageLoad, longest), instance.getTotalDuration(), "max_load");
+            for (int c = 0; c < computerCount; c++) {
+                BoolVar[] onComputer = new BoolVar[processCount];
+                for (int p = 0; p < processCount; p++) {
+                    onComputer[p] = assigned[p][c];
+                }
+                model.addLessOrEqual(LinearExpr.weightedSum(onComputer, weights), maxLoad);
+            }
+            if (interchangeable) {
+                addFirstUseOrder();
+            }
+
+            List<BoolVar> splits = new ArrayList<>();
+            if ((long) instance.getConflictPairCount() * computerCount <= MAX_SPLIT_TERMS) {
+                int[] offsets = instance.getConflictOffsets();
+                int[] targets = instance.getConflictTargets();
+                for (int p = 0; p < processCount; p++) {
+                    for (int k = offsets[p]; k < offsets[p + 1]; k++) {
+                        int q = targets[k];
+                        if (q <= p)
+                            continue;
+                        BoolVar split = model.newBoolVar("split_" + p + "_" + q);
+                        for (int c = 0; c < computerCount; c++) {
+                            // p on c and q elsewhere
+                            model.addBoolOr(new Literal[]{assigned[p][c].not(), assigned[q][c], split});
+                        }
+                        splits.add(split);
+                    }
+                }
+            }
+            // the load comes first: the splits never outweigh one unit of load
+            loadWeight = splits.size() + 1;
+            model.minimize(LinearExpr.newBuilder().addTerm(maxLoad, loadWeight)
+                    .addSum(splits.toArray(new BoolVar[0])).build());
+        }
+
+        /**
+         * a process is on computer c > 0 only if an earlier process is on computer c - 1
+         */
+        private void addFirstUseOrder() {
+            BoolVar[] used = assigned[0];
+            for (int c = 1; c < computerCount; c++) {
+                model.addEquality(assigned[0][c], 0);
+            }
+            for (int p = 1; p < processCount; p++) {
+                for (int c = 1; c < computerCount; c++) {
+                    model.addImplication(assigned[p][c], used[c - 1]);
+                }
+                if (p < processCount - 1) {
+                    BoolVar[] usedNext = new BoolVar[computerCount];
+                    for (int c = 0; c < computerCount; c++) {
+                        usedNext[c] = model.newBoolVar("used_" + p + "_" + c);
+                        model.addMaxEquality(usedNext[c], new IntVar[]{used[c], assigned[p][c]});
+                    }
+                    used = usedNext;
+                }
+            }
+        }
+
+        private int[] canonical(int[] assignment) {
+            int[] canonical = assignment.clone();
+            if (interchangeable) {
+                CpSolver.canonicalizeComputers(canonical, computerCount);
+            }
+            return canonical;
+        }
+
+        void addNoGood(int[] assignment) {
+            int[] canonical = canonical(assignment);
+            BoolVar[] kept = new BoolVar[processCount];
+            for (int p = 0; p < processCount; p++) {
+                kept[p] = assigned[p][canonical[p]];
+            }
+            model.addLessOrEqual(LinearExpr.sum(kept), processCount - 1);
+        }
+
+        CpSolverStatus solve(DecompositionSolver decomposition, com.google.ortools.sat.CpSolver solver,
+                             int maxLoadLimit, int[] hintedAssignment) {
+            model.addLessOrEqual(maxLoad, maxLoadLimit);
+            model.clearHints();
+            int[] canonical = canonical(hintedAssignment);
+            for (int p = 0; p < processCount; p++) {
+                for (int c = 0; c < computerCount; c++) {
+                    model.addHint(assigned[p][c], canonical[p] == c ? 1 : 0);
+                }
+            }
+            return decomposition.solve(solver, model);
+        }
+
+        /**
+         * @return lower bound of the highest load over the assignments left
+         */
+        int getLoadBound(com.google.ortools.sat.CpSolver solver) {
+            return (int) Math.floor(solver.bestObjectiveBound() / loadWeight);
+        }
+
+        int[] getAssignment(com.google.ortools.sat.CpSolver solver) {
+            int[] assignment = new int[processCount];
+            for (int p = 0; p < processCount; p++) {
+                for (int c = 0; c < computerCount; c++) {
+                    if (solver.booleanValue(assigned[p][c])) {
+                        assignment[p] = c;
+                    }
+                }
+            }
+            return assignment;
+        }
+    }
+}
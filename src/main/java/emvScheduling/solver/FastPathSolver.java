@@ -0,0 +1,259 @@
+package emvScheduling.solver;
+
+import com.google.ortools.sat.CpModel;
+import com.google.ortools.sat.CpSolverStatus;
+import com.google.ortools.sat.IntVar;
+import emvScheduling.domain.ExecutionSettings;
+import emvScheduling.domain.IntermediateSolution;
+import emvScheduling.domain.ProblemInstance;
+import emvScheduling.domain.SolverOutput;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+
+/**
+ * classifies the instance and solves the degenerate classes without the full model (see {@link SolverOutput.Route}):
+ * <ul>
+ *     <li>SERIAL: a single computer runs the processes one after another, which is optimal whatever the
+ *     conflicts</li>
+ *     <li>NO_CONFLICT: identical parallel machines (P||Cmax); the better of LPT and MULTIFIT (binary search of the
+ *     capacity packed by first fit decreasing) is kept, and it is returned only if it meets the makespan lower bound.
+ *     Otherwise the full model runs with it as hint</li>
+ *     <li>CONFLICT_ONLY: at least one computer per process, so only the conflicts delay a process; a list schedule
+ *     is returned if it meets the heaviest clique, otherwise a model of the start times and the conflicts only</li>
+ * </ul>
+ */
+public class FastPathSolver {
+    protected final static transient Logger logger = LoggerFactory.getLogger(FastPathSolver.class);
+
+    public static SolverOutput.Route classify(ProblemInstance instance) {
+        if (instance.getProcessCount() == 0 || instance.getComputerCount() == 1)
+            return SolverOutput.Route.SERIAL;
+        if (instance.getComputerCount() >= instance.getProcessCount())
+            return SolverOutput.Route.CONFLICT_ONLY;
+        if (instance.getConflictPairCount() == 0)
+            return SolverOutput.Route.NO_CONFLICT;
+        return SolverOutput.Route.MODEL;
+    }
+
+    /**
+     * @param instance
+     * @param settings
+     * @param handle   receives the schedule found, may be null
+     * @return the output of the fast path of the instance class, or null if the full model is needed
+     */
+    public static SolverOutput solve(ProblemInstance instance, ExecutionSettings settings, SolveHandle handle) {
+        long solveStart = System.nanoTime();
+        SolverOutput.Route route = classify(instance);
+        IntermediateSolution solution;
+        int lowerBound;
+        CpSolverStatus status = CpSolverStatus.OPTIMAL;
+        switch (route) {
+            case SERIAL: {
+                int[] computers = new int[instance.getProcessCount()];
+                int[] starts = new int[instance.getProcessCount()];
+                int time = 0;
+                for (int p = 0; p < starts.length; p++) {
+                    starts[p] = time;
+                    time += instance.getDurations()[p];
+                }
+                lowerBound = time;
+                solution = new IntermediateSolution(computers, starts, time, lowerBound, 0);
+                break;
+            }
+            case NO_CONFLICT: {
+                lowerBound = MakespanLowerBound.compute(instance, null).getValue();
+                solution = noConflictSchedule(instance);
+                if (solution.getMakespan() > lowerBound) {
+                    logger.trace("No-conflict schedule {} above the lower bound {}, full model needed",
+                            solution.getMakespan(), lowerBound);
+                    return null;
+                }
+                break;
+            }
+            case CONFLICT_ONLY: {
+                ConflictCliqueCover cover = instance.getConflictPairCount() == 0 ? null :
+                        ConflictCliqueCover.cover(instance, settings);
+                lowerBound = MakespanLowerBound.compute(instance, cover).getValue();
+                solution = conflictListSchedule(instance);
+                if (solution.getMakespan() > lowerBound) {
+                    IntermediateSolution modelSolution = solveConflictModel(instance, settings,
+                            settings.isConflictCliqueCover() ? cover : null, solution, lowerBound);
+                    if (modelSolution != null) {
+                        status = modelSolution.isOptimal() ? CpSolverStatus.OPTIMAL : CpSolverStatus.FEASIBLE;
+                        lowerBound = (int) Math.ceil(modelSolution.getBound() - 1e-6);
+                        solution = modelSolution;
+                    } else {
+                        status = CpSolverStatus.FEASIBLE;
+                    }
+                }
+                break;
+            }
+            default:
+                return null;
+        }
+
+        SolverOutput solverOutput = new SolverOutput();
+        solverOutput.setEngine(settings.getEngine().name());
+        solverOutput.setRoute(route);
+        solverOutput.setHorizon((int) instance.getTotalDuration());
+        solverOutput.setConflictPairCount(instance.getConflictPairCount());
+        solverOutput.setLowerBound(lowerBound);
+        solverOutput.setBestObjectiveBound((double) (status == CpSolverStatus.OPTIMAL ? solution.getMakespan() :
+                lowerBound));
+        solverOutput.setSolverStatus(status.toString());
+        solverOutput.setStopReason(status == CpSolverStatus.OPTIMAL ? SolverOutput.StopReason.OPTIMAL :
+                SolverOutput.StopReason.TIME_LIMIT);
+        solverOutput.setMakespan((double) solution.getMakespan());
+        solverOutput.setComputerAssignment(solution.getComputerAssignment());
+        solverOutput.setStartTimes(solution.getStartTimes());
+        solverOutput.setSolverWallTime((System.nanoTime() - solveStart) / 1e9);
+        if (handle != null) {
+            handle.onSolution(solution);
+        }
+        logger.info("Route {}: makespan {}, bound {} in {} s", route, solution.getMakespan(),
+                solverOutput.getBestObjectiveBound(), solverOutput.getSolverWallTime());
+        return solverOutput;
+    }
+
+    /**
+     * @param instance without conflicts
+     * @return the better of the LPT and MULTIFIT schedules
+     */
+    public static IntermediateSolution noConflictSchedule(ProblemInstance instance) {
+        int processCount = instance.getProcessCount();
+        int computerCount = instance.getComputerCount();
+        int[] durations = instance.getDurations();
+        Integer[] longestFirst = new Integer[processCount];
+        for (int p = 0; p < processCount; p++) {
+            longestFirst[p] = p;
+        }
+        Arrays.sort(longestFirst, (a, b) -> Integer.compare(durations[b], durations[a]));
+
+        // LPT: the next longest process goes to the least loaded computer
+        int[] lpt = new int[processCount];
+        long[] loads = new long[computerCount];
+        PriorityQueue<Integer> leastLoaded = new PriorityQueue<>(
+                Comparator.comparingLong((Integer c) -> loads[c]).thenComparingInt(c -> c));
+        for (int c = 0; c < computerCount; c++) {
+            leastLoaded.add(c);
+        }
+        for (int p : longestFirst) {
+            int c = leastLoaded.poll();
+            lpt[p] = c;
+            loads[c] += durations[p];
+            leastLoaded.add(c);
+        }
+        long lptMakespan = Arrays.stream(loads).max().orElse(0);
+
+        // MULTIFIT: the lowest capacity first fit decreasing packs into the computers
+        long total = instance.getTotalDuration();
+        long longest = processCount == 0 ? 0 : durations[longestFirst[0]];
+        long low = Math.max((total + computerCount - 1) / computerCount, longest);
+        long high = lptMakespan - 1;
+        int[] best = lpt;
+        int[] packing = new int[processCount];
+        while (low <= high) {
+            long capacity = (low + high) / 2;
+            if (firstFitDecreasing(durations, longestFirst, computerCount, capacity, packing)) {
+                best = packing.clone();
+                high = capacity - 1;
+            } else {
+                low = capacity + 1;
+            }
+        }
+
+        int[] starts = new int[processCount];
+        long[] computerEnds = new long[computerCount];
+        for (int p = 0; p < processCount; p++) {
+            starts[p] = (int) computerEnds[best[p]];
+            computerEnds[best[p]] += durations[p];
+        }
+        long makespan = Arrays.stream(computerEnds).max().orElse(0);
+        return new IntermediateSolution(best, starts, makespan, 0, 0);
+    }
+
+    private static boolean firstFitDecreasing(int[] durations, Integer[] longestFirst, int computerCount,
+                                              long capacity, int[] packing) {
+        long[] loads = new long[computerCount];
+        for (int p : longestFirst) {
+            int c = 0;
+            while (c < computerCount && loads[c] + durations[p] > capacity) {
+                c++;
+            }
+            if (c == computerCount)
+                return false;
+            packing[p] = c;
+            loads[c] += durations[p];
+        }
+        return true;
+    }
+
+    /**
+     * @param instance with at least one computer per process
+     * @return each process on its own computer, the longest first at the earliest time its placed conflicting
+     * processes leave free
+     */
+    static IntermediateSolution conflictListSchedule(ProblemInstance instance) {
+        int processCount = instance.getProcessCount();
+        int[] durations = instance.getDurations();
+        int[] offsets = instance.getConflictOffsets();
+        int[] targets = instance.getConflictTargets();
+        Integer[] order = new Integer[processCount];
+        for (int p = 0; p < processCount; p++) {
+            order[p] = p;
+        }
+        Arrays.sort(order, (a, b) -> Integer.compare(durations[b], durations[a]));
+
+        int[] computers = new int[processCount];
+        int[] starts = new int[processCount];
+        boolean[] placed = new boolean[processCount];
+        long makespan = 0;
+        for (int p : order) {
+            List<Integer> busy = new ArrayList<>();
+            for (int k = offsets[p]; k < offsets[p + 1]; k++) {
+                if (placed[targets[k]]) {
+                    busy.add(targets[k]);
+                }
+            }
+            busy.sort(Comparator.comparingInt(q -> starts[q]));
+            int start = 0;
+            for (int q : busy) {
+                if (starts[q] >= start + durations[p])
+                    break;
+                start = Math.max(start, starts[q] + durations[q]);
+            }
+            computers[p] = p;
+            starts[p] = start;
+            placed[p] = true;
+            makespan = Math.max(makespan, start + durations[p]);
+        }
+        return new IntermediateSolution(computers, starts, makespan, 0, 0);
+    }
+
+    /**
+     * @return the schedule of the start-times-and-conflicts model, hinted with the given one, or null if none was found
+     */
+    private static IntermediateSolution solveConflictModel(ProblemInstance instance, ExecutionSettings settings,
+                                                           ConflictCliqueCover cover, IntermediateSolution hint,
+                                                           int lowerBound) {
+        CpModel model = new CpModel();
+        // each process alone on its computer, so the per-computer no_overlaps are trivial
+        IntVar[] startVars = DecompositionSolver.addSequencing(model, instance, cover, hint.getComputerAssignment(),
+                hint.getStartTimes(), lowerBound, (int) hint.getMakespan());
+        com.google.ortools.sat.CpSolver solver = DecompositionSolver.newSolver(settings,
+                settings.getTimeLeft().toNanos() / 1e9);
+        CpSolverStatus status = solver.solve(model);
+        if (status != CpSolverStatus.OPTIMAL && status != CpSolverStatus.FEASIBLE)
+            return null;
+        int[] starts = new int[startVars.length];
+        for (int p = 0; p < starts.length; p++) {
+            starts[p] = (int) solver.value(startVars[p]);
+        }
+        double bound = status == CpSolverStatus.OPTIMAL ? solver.objectiveValue() :
+                Math.max(lowerBound, solver.bestObjectiveBound());
+        return new IntermediateSolution(hint.getComputerAssignment(), starts, (long) solver.objectiveValue(), bound,
+                solver.wallTime());
+    }
+}
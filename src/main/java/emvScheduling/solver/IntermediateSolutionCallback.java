@@ -0,0 +1,40 @@
+package emvScheduling.solver;
+
+import com.google.ortools.sat.CpSolverSolutionCallback;
+import emvScheduling.domain.IntermediateSolution;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * reads the schedule of each solution found by CP-SAT from the scheduling variables and hands it to the listeners
+ */
+public class IntermediateSolutionCallback extends CpSolverSolutionCallback {
+    private final SchedulingVariables vars;
+    private final List<IntermediateSolutionListener> listeners = new CopyOnWriteArrayList<>();
+
+    public IntermediateSolutionCallback(SchedulingVariables vars) {
+        this.vars = vars;
+    }
+
+    public void addListener(IntermediateSolutionListener listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void onSolutionCallback() {
+        if (listeners.isEmpty())
+            return;
+        int[] computerAssignment = new int[vars.getComputers().length];
+        int[] startTimes = new int[vars.getStarts().length];
+        for (int p = 0; p < computerAssignment.length; p++) {
+            computerAssignment[p] = (int) value(vars.getComputers()[p]);
+            startTimes[p] = (int) value(vars.getStarts()[p]);
+        }
+        IntermediateSolution solution = new IntermediateSolution(computerAssignment, startTimes,
+                (long) objectiveValue(), bestObjectiveBound(), wallTime());
+        for (IntermediateSolutionListener listener : listeners) {
+            listener.onSolution(solution);
+        }
+    }
+}
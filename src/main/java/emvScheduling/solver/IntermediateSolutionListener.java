@@ -0,0 +1,15 @@
+package emvScheduling.solver;
+
+import emvScheduling.domain.IntermediateSolution;
+
+/**
+ * receives every improving solution of a running solve
+ */
+public interface IntermediateSolutionListener {
+    /**
+     * called on the solver thread, so implementations must return quickly
+     *
+     * @param solution
+     */
+    void onSolution(IntermediateSolution solution);
+}
@@ -0,0 +1,515 @@
+package emvScheduling.solver;
+
+import com.google.ortools.sat.*;
+import emvScheduling.domain.ExecutionSettings;
+import emvScheduling.domain.IntermediateSolution;
+import emvScheduling.domain.ProblemInstance;
+import emvScheduling.domain.SolverOutput;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * large neighbourhood search driven by the structure of the instance: each subproblem keeps the computer and start
+ * of most processes from the incumbent and re-optimizes the others in a small CP-SAT model with a short time limit.
+ * The freed processes are chosen by one of the {@link Neighbourhood}s in turn.
+ * <p>
+ * A round solves numberOfWorkers subproblems in parallel, one worker each, against the same incumbent. The accepted
+ * moves (lower makespan, or the same makespan with the freed processes ending earlier) are merged into the incumbent
+ * one after another, and a move is kept only if the merged schedule still passes the {@link ScheduleChecker} without
+ * a higher makespan. The neighbourhood size grows after each round without improvement, and is reset when one
+ * improves.
+ */
+public class LnsSolver {
+    protected final static transient Logger logger = LoggerFactory.getLogger(LnsSolver.class);
+
+    private static final double SIZE_GROWTH = 1.25;
+
+    private final Set<com.google.ortools.sat.CpSolver> running = ConcurrentHashMap.newKeySet();
+    private volatile boolean stopped;
+
+    /**
+     * how the processes to re-optimize are chosen
+     */
+    public enum Neighbourhood {
+        /**
+         * the processes of a computer, a critical one (ending at the makespan) every other time, in a time window when
+         * there are too many
+         */
+        COMPUTER_TIMELINE,
+        /**
+         * a clique of mutually conflicting processes, containing a critical process when possible, and its neighbours
+         */
+        CONFLICT_CLIQUE,
+        /**
+         * the critical path ending at the makespan (each process waiting on its computer or on a conflicting process)
+         * and the processes starting closest to a point of it
+         */
+        CRITICAL_PATH_WINDOW
+    }
+
+    /**
+     * a re-optimized schedule of the freed processes
+     */
+    private static class Move {
+        private final Neighbourhood neighbourhood;
+        private final int[] processes;
+        private final int[] computers;
+        private final int[] starts;
+        private final long makespan;
+        private final long totalEnd;//sum of the ends of the freed processes
+
+        Move(Neighbourhood neighbourhood, int[] processes, int[] computers, int[] starts, long makespan,
+             long totalEnd) {
+            this.neighbourhood = neighbourhood;
+            this.processes = processes;
+            this.computers = computers;
+            this.starts = starts;
+            this.makespan = makespan;
+            this.totalEnd = totalEnd;
+        }
+    }
+
+    public SolverOutput solve(ProblemInstance instance, ExecutionSettings settings, SolveHandle handle) {
+        return solve(instance, settings, handle, null, System.nanoTime() + settings.getTimeLeft().toNanos());
+    }
+
+    /**
+     * @param instance
+     * @param settings
+     * @param handle   may be null
+     * @param initial  schedule to start from, or null to start from the booster one
+     * @param deadline in {@link System#nanoTime()} time
+     * @return the output
+     */
+    SolverOutput solve(ProblemInstance instance, ExecutionSettings settings, SolveHandle handle,
+                       IntermediateSolution initial, long deadline) {
+        long solveStart = System.nanoTime();
+        double subproblemTimeLimit = settings.getLnsSubproblemTimeLimitInMillis() / 1000.0;
+        int processCount = instance.getProcessCount();
+        SolverOutput solverOutput = new SolverOutput();
+        solverOutput.setEngine(ExecutionSettings.Engine.LNS.name());
+        solverOutput.setHorizon((int) instance.getTotalDuration());
+        solverOutput.setConflictPairCount(instance.getConflictPairCount());
+        if (handle != null) {
+            handle.attach(this::stop);
+        }
+
+        ConflictCliqueCover cover = null;
+        if (instance.getConflictPairCount() > 0) {
+            cover = ConflictCliqueCover.cover(instance, settings, deadline - System.nanoTime());
+        }
+        int lowerBound = MakespanLowerBound.compute(instance, cover).getValue();
+        solverOutput.setLowerBound(lowerBound);
+        List<List<int[]>> processCliques = new ArrayList<>(processCount);
+        for (int p = 0; p < processCount; p++) {
+            processCliques.add(new ArrayList<>());
+        }
+        if (cover != null) {
+            for (int[] clique : cover.getCliques()) {
+                for (int p : clique) {
+                    processCliques.get(p).add(clique);
+                }
+            }
+        }
+
+        int[] computers;
+        int[] starts;
+        long makespan;
+        if (initial == null) {
+            SolverBooster.Suggestion suggestion = SolverBooster.getBestSuggestion(instance, settings);
+            solverOutput.setHintSource("BOOSTER");
+            solverOutput.setBoosterStrategy(suggestion.getStrategy());
+            computers = suggestion.getComputers().clone();
+            starts = suggestion.getStartTimes().clone();
+            makespan = suggestion.getMakespan();
+        } else {
+            solverOutput.setHintSource("INITIAL");
+            computers = initial.getComputerAssignment().clone();
+            starts = initial.getStartTimes().clone();
+            makespan = ScheduleChecker.makespan(instance, starts);
+        }
+        if (handle != null) {
+            handle.onSolution(new IntermediateSolution(computers.clone(), starts.clone(), makespan, lowerBound, 0));
+        }
+
+        int parallelism = Math.max(1, settings.getNumberOfWorkers());
+        ExecutorService pool = Executors.newFixedThreadPool(parallelism, r -> {
+            Thread thread = new Thread(r, "lns-subproblem");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Random random = new Random(settings.getRandomSeed());
+        int initialSize = Math.min(processCount, Math.max(2, settings.getLnsNeighbourhoodSize()));
+        double size = initialSize;
+        int subproblems = 0;
+        int[] accepted = new int[Neighbourhood.values().length];
+        int nextNeighbourhood = 0;
+        try {
+            while (makespan > lowerBound && !stopped && processCount > 1) {
+                double remaining = (deadline - System.nanoTime()) / 1e9;
+                if (remaining <= 0)
+                    break;
+                double timeLimit = Math.min(remaining, subproblemTimeLimit);
+                List<Callable<Move>> round = new ArrayList<>(parallelism);
+                for (int k = 0; k < parallelism; k++) {
+                    Neighbourhood neighbourhood = Neighbourhood.values()[nextNeighbourhood++
+                            % Neighbourhood.values().length];
+                    if (neighbourhood == Neighbourhood.CONFLICT_CLIQUE && cover == null) {
+                        neighbourhood = Neighbourhood.COMPUTER_TIMELINE;
+                    }
+                    int[] freed = select(neighbourhood, instance, computers, starts, makespan, processCliques,
+                            (int) size, random);
+                    Neighbourhood chosen = neighbourhood;
+                    int[] baseComputers = computers;
+                    int[] baseStarts = starts;
+                    long baseMakespan = makespan;
+                    round.add(() -> reoptimize(chosen, instance, baseComputers, baseStarts, baseMakespan, lowerBound,
+                            freed, settings, timeLimit));
+                }
+                List<Move> moves = new ArrayList<>();
+                for (Future<Move> future : pool.invokeAll(round)) {
+                    subproblems++;
+                    try {
+                        Move move = future.get();
+                        if (move != null) {
+                            moves.add(move);
+                        }
+                    } catch (ExecutionException e) {
+                        logger.warn("LNS subproblem failed", e.getCause());
+                    }
+                }
+
+                // merges the moves, best first, into a copy of the incumbent
+                moves.sort(Comparator.comparingLong((Move move) -> move.makespan)
+                        .thenComparingLong(move -> move.totalEnd));
+                int[] mergedComputers = computers.clone();
+                int[] mergedStarts = starts.clone();
+                long mergedMakespan = makespan;
+                boolean improved = false;
+                for (Move move : moves) {
+                    int[] previousComputers = new int[move.processes.length];
+                    int[] previousStarts = new int[move.processes.length];
+                    for (int k = 0; k < move.processes.length; k++) {
+                        int p = move.processes[k];
+                        previousComputers[k] = mergedComputers[p];
+                        previousStarts[k] = mergedStarts[p];
+                        mergedComputers[p] = move.computers[k];
+                        mergedStarts[p] = move.starts[k];
+                    }
+                    int newMakespan = ScheduleChecker.makespan(instance, mergedStarts);
+                    if (newMakespan <= mergedMakespan
+                            && ScheduleChecker.isFeasible(instance, mergedComputers, mergedStarts)) {
+                        mergedMakespan = newMakespan;
+                        accepted[move.neighbourhood.ordinal()]++;
+                        improved = true;
+                    } else {
+                        for (int k = 0; k < move.processes.length; k++) {
+                            mergedComputers[move.processes[k]] = previousComputers[k];
+                            mergedStarts[move.processes[k]] = previousStarts[k];
+                        }
+                    }
+                }
+                if (improved) {
+                    boolean lowerMakespan = mergedMakespan < makespan;
+                    computers = mergedComputers;
+                    starts = mergedStarts;
+                    makespan = mergedMakespan;
+                    size = initialSize;
+                    if (lowerMakespan) {
+                        double time = (System.nanoTime() - solveStart) / 1e9;
+                        if (solverOutput.getFirstSolutionTime() == null) {
+                            solverOutput.setFirstSolutionTime(time);
+                        }
+                        solverOutput.setFinalSolutionTime(time);
+                        logger.trace("LNS makespan {} after {} subproblems", makespan, subproblems);
+                        if (handle != null) {
+                            handle.onSolution(new IntermediateSolution(computers.clone(), starts.clone(), makespan,
+                                    lowerBound, time));
+                        }
+                    }
+                } else {
+                    size = Math.min(processCount, size * SIZE_GROWTH);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            pool.shutdownNow();
+        }
+
+        boolean optimal = makespan <= lowerBound;
+        solverOutput.setLnsSubproblems(subproblems);
+        solverOutput.setSolverStatus((optimal ? CpSolverStatus.OPTIMAL : CpSolverStatus.FEASIBLE).toString());
+        if (optimal) {
+            solverOutput.setStopReason(subproblems == 0 ? SolverOutput.StopReason.LOWER_BOUND_REACHED :
+                    SolverOutput.StopReason.OPTIMAL);
+        } else if (stopped) {
+            solverOutput.setStopReason(SolverOutput.StopReason.CANCELLED);
+        } else {
+            solverOutput.setStopReason(SolverOutput.StopReason.TIME_LIMIT);
+        }
+        solverOutput.setBestObjectiveBound((double) lowerBound);
+        solverOutput.setMakespan((double) makespan);
+        solverOutput.setComputerAssignment(computers);
+        solverOutput.setStartTimes(starts);
+        solverOutput.setSolverWallTime((System.nanoTime() - solveStart) / 1e9);
+        StringBuilder acceptedLog = new StringBuilder();
+        for (Neighbourhood neighbourhood : Neighbourhood.values()) {
+            acceptedLog.append(' ').append(neighbourhood).append('=').append(accepted[neighbourhood.ordinal()]);
+        }
+        logger.info("LNS: {} subproblems, makespan {}, bound {}, accepted moves:{}", subproblems, makespan,
+                lowerBound, acceptedLog);
+        return solverOutput;
+    }
+
+    private void stop() {
+        stopped = true;
+        for (com.google.ortools.sat.CpSolver solver : running) {
+            solver.stopSearch();
+        }
+    }
+
+    /**
+     * @return the processes freed by the neighbourhood, at most size of them
+     */
+    static int[] select(Neighbourhood neighbourhood, ProblemInstance instance, int[] computers, int[] starts,
+                        long makespan, List<List<int[]>> processCliques, int size, Random random) {
+        int processCount = instance.getProcessCount();
+        int[] durations = instance.getDurations();
+        List<Integer> critical = new ArrayList<>();
+        for (int p = 0; p < processCount; p++) {
+            if (starts[p] + durations[p] == makespan) {
+                critical.add(p);
+            }
+        }
+        LinkedHashSet<Integer> freed = new LinkedHashSet<>();
+        switch (neighbourhood) {
+            case COMPUTER_TIMELINE: {
+                int computer = random.nextBoolean() ? computers[critical.get(random.nextInt(critical.size()))]
+                        : random.nextInt(instance.getComputerCount());
+                List<Integer> timeline = new ArrayList<>();
+                for (int p = 0; p < processCount; p++) {
+                    if (computers[p] == computer) {
+                        timeline.add(p);
+                    }
+                }
+                timeline.sort(Comparator.comparingInt(p -> starts[p]));
+                int from = timeline.size() > size ? random.nextInt(timeline.size() - size + 1) : 0;
+                for (int k = from; k < timeline.size() && freed.size() < size; k++) {
+                    freed.add(timeline.get(k));
+                }
+                break;
+            }
+            case CONFLICT_CLIQUE: {
+                int pivot = critical.get(random.nextInt(critical.size()));
+                if (processCliques.get(pivot).isEmpty()) {
+                    pivot = random.nextInt(processCount);
+                    for (int k = 0; k < processCount && processCliques.get(pivot).isEmpty(); k++) {
+                        pivot = (pivot + 1) % processCount;
+                    }
+                }
+                List<int[]> cliques = processCliques.get(pivot);
+                int[] clique = cliques.isEmpty() ? new int[]{pivot} : cliques.get(random.nextInt(cliques.size()));
+                for (int p : clique) {
+                    if (freed.size() < size) {
+                        freed.add(p);
+                    }
+                }
+                int[] offsets = instance.getConflictOffsets();
+                int[] targets = instance.getConflictTargets();
+                for (int p : clique) {
+                    for (int k = offsets[p]; k < offsets[p + 1] && freed.size() < size; k++) {
+                        freed.add(targets[k]);
+                    }
+                }
+                break;
+            }
+            case CRITICAL_PATH_WINDOW: {
+                List<Integer> path = criticalPath(instance, computers, starts,
+                        critical.get(random.nextInt(critical.size())));
+                for (int p : path) {
+                    if (freed.size() < size) {
+                        freed.add(p);
+                    }
+                }
+                int pivotStart = starts[path.get(random.nextInt(path.size()))];
+                Integer[] byDistance = new Integer[processCount];
+                for (int p = 0; p < processCount; p++) {
+                    byDistance[p] = p;
+                }
+                Arrays.sort(byDistance, Comparator.comparingInt(p -> Math.abs(starts[p] - pivotStart)));
+                for (int k = 0; k < processCount && freed.size() < size; k++) {
+                    freed.add(byDistance[k]);
+                }
+                break;
+            }
+        }
+        int[] selected = new int[freed.size()];
+        int k = 0;
+        for (int p : freed) {
+            selected[k++] = p;
+        }
+        return selected;
+    }
+
+    /**
+     * @return the chain of processes ending with the given one, where each process starts when its predecessor, on
+     * the same computer or conflicting with it, ends
+     */
+    static List<Integer> criticalPath(ProblemInstance instance, int[] computers, int[] starts, int last) {
+        int processCount = instance.getProcessCount();
+        int[] durations = instance.getDurations();
+        int[] offsets = instance.getConflictOffsets();
+        int[] targets = instance.getConflictTargets();
+        List<Integer> path = new ArrayList<>();
+        boolean[] onPath = new boolean[processCount];
+        int current = last;
+        while (current >= 0 && !onPath[current]) {
+            path.add(current);
+            onPath[current] = true;
+            int predecessor = -1;
+            for (int k = offsets[current]; k < offsets[current + 1] && predecessor < 0; k++) {
+                if (starts[targets[k]] + durations[targets[k]] == starts[current]) {
+                    predecessor = targets[k];
+                }
+            }
+            for (int p = 0; p < processCount && predecessor < 0; p++) {
+                if (computers[p] == computers[current] && starts[p] + durations[p] == starts[current] && p != current) {
+                    predecessor = p;
+                }
+            }
+            current = predecessor;
+        }
+        return path;
+    }
+
+    /**
+     * re-optimizes the freed processes around the others, kept as in the incumbent. The freed processes stay within
+     * the time window they span in the incumbent, so only the kept processes overlapping it enter the model.
+     *
+     * @return the move, or null if no schedule better than the incumbent was found
+     */
+    private Move reoptimize(Neighbourhood neighbourhood, ProblemInstance instance, int[] computers, int[] starts,
+                            long makespan, int lowerBound, int[] freed, ExecutionSettings settings,
+                            double timeLimit) {
+        int processCount = instance.getProcessCount();
+        int computerCount = instance.getComputerCount();
+        int[] durations = instance.getDurations();
+        int upperBound = (int) makespan;
+        boolean[] isFreed = new boolean[processCount];
+        int windowStart = upperBound;
+        int windowEnd = 0;
+        for (int p : freed) {
+            isFreed[p] = true;
+            windowStart = Math.min(windowStart, starts[p]);
+            windowEnd = Math.max(windowEnd, starts[p] + durations[p]);
+        }
+
+        CpModel model = new CpModel();
+        IntervalVar[] intervals = new IntervalVar[processCount];
+        List<List<IntervalVar>> computerIntervals = new ArrayList<>(computerCount);
+        for (int c = 0; c < computerCount; c++) {
+            computerIntervals.add(new ArrayList<>());
+        }
+        int fixedMakespan = 0;
+        for (int p = 0; p < processCount; p++) {
+            if (!isFreed[p]) {
+                fixedMakespan = Math.max(fixedMakespan, starts[p] + durations[p]);
+                if (starts[p] < windowEnd && starts[p] + durations[p] > windowStart) {
+                    intervals[p] = model.newFixedInterval(starts[p], durations[p], "fixed_" + p);
+                    computerIntervals.get(computers[p]).add(intervals[p]);
+                }
+            }
+        }
+        IntVar[] startVars = new IntVar[freed.length];
+        IntVar[] endVars = new IntVar[freed.length];
+        BoolVar[][] presences = new BoolVar[freed.length][computerCount];
+        long baseTotalEnd = 0;
+        for (int k = 0; k < freed.length; k++) {
+            int p = freed[k];
+            startVars[k] = model.newIntVar(windowStart, windowEnd - durations[p], "start_" + p);
+            endVars[k] = model.newIntVar(windowStart + durations[p], windowEnd, "end_" + p);
+            intervals[p] = model.newIntervalVar(startVars[k], LinearExpr.constant(durations[p]), endVars[k],
+                    "interval_" + p);
+            for (int c = 0; c < computerCount; c++) {
+                presences[k][c] = model.newBoolVar("on_" + p + "_" + c);
+                computerIntervals.get(c).add(model.newOptionalFixedSizeIntervalVar(startVars[k], durations[p],
+                        presences[k][c], "interval_" + p + "_" + c));
+                model.addHint(presences[k][c], computers[p] == c ? 1 : 0);
+            }
+            model.addExactlyOne(presences[k]);
+            model.addHint(startVars[k], starts[p]);
+            model.addHint(endVars[k], starts[p] + durations[p]);
+            baseTotalEnd += starts[p] + durations[p];
+        }
+        for (List<IntervalVar> onComputer : computerIntervals) {
+            if (onComputer.size() > 1) {
+                model.addNoOverlap(onComputer);
+            }
+        }
+        // the fixed processes do not overlap each other, so one no_overlap per freed process and its fixed conflicts
+        int[] offsets = instance.getConflictOffsets();
+        int[] targets = instance.getConflictTargets();
+        for (int p : freed) {
+            List<IntervalVar> conflicting = new ArrayList<>();
+            conflicting.add(intervals[p]);
+            for (int k = offsets[p]; k < offsets[p + 1]; k++) {
+                int q = targets[k];
+                if (!isFreed[q]) {
+                    // null when outside the window
+                    if (intervals[q] != null) {
+                        conflicting.add(intervals[q]);
+                    }
+                } else if (q > p) {
+                    model.addNoOverlap(List.of(intervals[p], intervals[q]));
+                }
+            }
+            if (conflicting.size() > 1) {
+                model.addNoOverlap(conflicting);
+            }
+        }
+
+        IntVar makespanVar = model.newIntVar(Math.min(upperBound, Math.max(lowerBound, fixedMakespan)), upperBound,
+                "makespan");
+        LinearArgument[] ends = Arrays.copyOf(endVars, freed.length + 1, LinearArgument[].class);
+        ends[freed.length] = LinearExpr.constant(fixedMakespan);
+        model.addMaxEquality(makespanVar, ends);
+        model.addHint(makespanVar, upperBound);
+        // the makespan first, then the freed processes as early as possible
+        long makespanWeight = (long) freed.length * upperBound + 1;
+        model.minimize(LinearExpr.newBuilder().addTerm(makespanVar, makespanWeight).addSum(endVars).build());
+
+        com.google.ortools.sat.CpSolver solver = DecompositionSolver.newSolver(settings, timeLimit);
+        solver.getParameters().setNumWorkers(1);
+        running.add(solver);
+        CpSolverStatus status;
+        try {
+            if (stopped)
+                return null;
+            status = solver.solve(model);
+        } finally {
+            running.remove(solver);
+        }
+        if (status != CpSolverStatus.OPTIMAL && status != CpSolverStatus.FEASIBLE)
+            return null;
+        long newMakespan = solver.value(makespanVar);
+        long totalEnd = 0;
+        int[] newComputers = new int[freed.length];
+        int[] newStarts = new int[freed.length];
+        for (int k = 0; k < freed.length; k++) {
+            newStarts[k] = (int) solver.value(startVars[k]);
+            totalEnd += newStarts[k] + durations[freed[k]];
+            for (int c = 0; c < computerCount; c++) {
+                if (solver.booleanValue(presences[k][c])) {
+                    newComputers[k] = c;
+                }
+            }
+        }
+        if (newMakespan > makespan || (newMakespan == makespan && totalEnd >= baseTotalEnd))
+            return null;
+        return new Move(neighbourhood, freed, newComputers, newStarts, newMakespan, totalEnd);
+    }
+}
@@ -0,0 +1,85 @@
+package emvScheduling.solver;
+
+import emvScheduling.domain.ProblemInstance;
+import lombok.Getter;
+
+import java.util.Arrays;
+
+/**
+ * combinatorial lower bounds of the makespan, computed without the CP model:
+ * <ul>
+ *     <li>averageLoad: total duration divided by the computer count (rounded up)</li>
+ *     <li>longestProcess: duration of the longest process</li>
+ *     <li>heaviestClique: total duration of the heaviest clique of the conflict clique cover, since mutually
+ *     conflicting processes run one after another</li>
+ *     <li>binPacking: among the k*m+1 longest processes some computer runs k+1 of them, so the makespan is at least the
+ *     total duration of the k+1 shortest of them (the LPT argument)</li>
+ * </ul>
+ */
+@Getter
+public class MakespanLowerBound {
+    private int averageLoad;
+    private int longestProcess;
+    private int heaviestClique;
+    private int binPacking;
+
+    public int getValue() {
+        return Math.max(Math.max(averageLoad, longestProcess), Math.max(heaviestClique, binPacking));
+    }
+
+    /**
+     * @param instance
+     * @param cover clique cover of the conflict graph, null if there is no conflict
+     * @return
+     */
+    public static MakespanLowerBound compute(ProblemInstance instance, ConflictCliqueCover cover) {
+        MakespanLowerBound bound = new MakespanLowerBound();
+        int computerCount = instance.getComputerCount();
+        int[] durations = instance.getDurations().clone();
+        long total = 0;
+        for (int duration : durations) {
+            total += duration;
+            bound.longestProcess = Math.max(bound.longestProcess, duration);
+        }
+        bound.averageLoad = (int) ((total + computerCount - 1) / computerCount);
+
+        if (cover != null) {
+            for (int[] clique : cover.getCliques()) {
+                int weight = 0;
+                for (int processId : clique) {
+                    weight += durations[processId];
+                }
+                bound.heaviestClique = Math.max(bound.heaviestClique, weight);
+            }
+        }
+
+        // durations in descending order
+        Arrays.sort(durations);
+        for (int i = 0, j = durations.length - 1; i < j; i++, j--) {
+            int tmp = durations[i];
+            durations[i] = durations[j];
+            durations[j] = tmp;
+        }
+        long[] prefixSums = new long[durations.length + 1];
+        for (int i = 0; i < durations.length; i++) {
+            prefixSums[i + 1] = prefixSums[i] + durations[i];
+        }
+        for (int k = 1; k * computerCount < durations.length; k++) {
+            // the k+1 shortest among the k*m+1 longest processes
+            long weight = prefixSums[k * computerCount + 1] - prefixSums[k * computerCount - k];
+            bound.binPacking = (int) Math.max(bound.binPacking, weight);
+        }
+        return bound;
+    }
+
+    @Override
+    public String toString() {
+        return "MakespanLowerBound{" +
+                "value=" + getValue() +
+                ", averageLoad=" + averageLoad +
+                ", longestProcess=" + longestProcess +
+                ", heaviestClique=" + heaviestClique +
+                ", binPacking=" + binPacking +
+                '}';
+    }
+}
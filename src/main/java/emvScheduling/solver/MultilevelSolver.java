@@ -0,0 +1,252 @@
+package emvScheduling.solver;
+
+import emvScheduling.domain.ExecutionSettings;
+import emvScheduling.domain.IntermediateSolution;
+import emvScheduling.domain.ProblemInstance;
+import emvScheduling.domain.SolverOutput;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * multilevel scheme for instances too large for the joint model:
+ * <ol>
+ *     <li>coarsen: the short processes are matched, each with its shortest conflicting neighbour and then the
+ *     unmatched ones two by two, into super-tasks running their processes back to back on one computer. Matching
+ *     the super-tasks again merges chains and cliques of conflicting processes, until multilevelCoarseSize processes
+ *     are left</li>
+ *     <li>the coarsest instance is solved by the CP-SAT model, in half the time limit</li>
+ *     <li>uncoarsen: the schedule is expanded one level at a time and refined by LNS subproblems, the time left being
+ *     shared equally among the levels</li>
+ * </ol>
+ * A super-task holds its processes on one computer one after another, and conflicts with every super-task one of its
+ * processes conflicts with, so each expanded schedule is feasible.
+ */
+public class MultilevelSolver {
+    protected final static transient Logger logger = LoggerFactory.getLogger(MultilevelSolver.class);
+
+    private final CpSolver solver;
+    private volatile SolveHandle stage;
+    private volatile boolean stopped;
+
+    MultilevelSolver(CpSolver solver) {
+        this.solver = solver;
+    }
+
+    /**
+     * a coarser instance and the processes of the finer one run by each of its processes, in their order
+     */
+    static class Level {
+        private final ProblemInstance instance;
+        private final int[][] members;
+
+        Level(ProblemInstance instance, int[][] members) {
+            this.instance = instance;
+            this.members = members;
+        }
+    }
+
+    /**
+     * @param instance
+     * @param maxDuration longest super-task
+     * @param target      number of processes at which the matching stops
+     * @return the next coarser level, or null if no two processes can be merged
+     */
+    static Level coarsen(ProblemInstance instance, long maxDuration, int target) {
+        int processCount = instance.getProcessCount();
+        int[] durations = instance.getDurations();
+        int[] offsets = instance.getConflictOffsets();
+        int[] targets = instance.getConflictTargets();
+        Integer[] shortestFirst = new Integer[processCount];
+        for (int p = 0; p < processCount; p++) {
+            shortestFirst[p] = p;
+        }
+        Arrays.sort(shortestFirst, (a, b) -> Integer.compare(durations[a], durations[b]));
+
+        int[] groupOf = new int[processCount];
+        Arrays.fill(groupOf, -1);
+        int groupCount = 0;
+        int remaining = processCount;
+        // the conflicting pairs first, they lose nothing by sharing a computer
+        for (int p : shortestFirst) {
+            if (remaining <= target)
+                break;
+            if (groupOf[p] >= 0)
+                continue;
+            int mate = -1;
+            for (int k = offsets[p]; k < offsets[p + 1]; k++) {
+                int q = targets[k];
+                if (groupOf[q] < 0 && durations[p] + durations[q] <= maxDuration
+                        && (mate < 0 || durations[q] < durations[mate])) {
+                    mate = q;
+                }
+            }
+            if (mate >= 0) {
+                groupOf[p] = groupCount;
+                groupOf[mate] = groupCount++;
+                remaining--;
+            }
+        }
+        int pending = -1;
+        for (int p : shortestFirst) {
+            if (remaining <= target)
+                break;
+            if (groupOf[p] >= 0)
+                continue;
+            if (pending < 0) {
+                pending = p;
+                continue;
+            }
+            if (durations[pending] + durations[p] > maxDuration)
+                break;
+            groupOf[pending] = groupCount;
+            groupOf[p] = groupCount++;
+            remaining--;
+            pending = -1;
+        }
+        if (groupCount == 0)
+            return null;
+
+        for (int p = 0; p < processCount; p++) {
+            if (groupOf[p] < 0) {
+                groupOf[p] = groupCount++;
+            }
+        }
+        int[] sizes = new int[groupCount];
+        for (int p = 0; p < processCount; p++) {
+            sizes[groupOf[p]]++;
+        }
+        int[][] members = new int[groupCount][];
+        for (int g = 0; g < groupCount; g++) {
+            members[g] = new int[sizes[g]];
+            sizes[g] = 0;
+        }
+        for (int p = 0; p < processCount; p++) {
+            members[groupOf[p]][sizes[groupOf[p]]++] = p;
+        }
+        return new Level(instance.contract(groupOf, groupCount), members);
+    }
+
+    /**
+     * @param instance
+     * @param settings
+     * @param handle   receives the schedules of the finest level, may be null
+     * @return the output, or null if the instance is already small enough for the joint model
+     */
+    public SolverOutput solve(ProblemInstance instance, ExecutionSettings settings, SolveHandle handle) {
+        long solveStart = System.nanoTime();
+        long deadline = solveStart + settings.getTimeLeft().toNanos();
+        if (handle != null) {
+            handle.attach(this::stop);
+        }
+        int[] durations = instance.getDurations();
+        long longest = Arrays.stream(durations).max().orElse(0);
+        long averageLoad = (instance.getTotalDuration() + instance.getComputerCount() - 1)
+                / instance.getComputerCount();
+        long maxDuration = Math.max(longest, averageLoad / 4);
+        int target = Math.max(2, settings.getMultilevelCoarseSize());
+
+        List<Level> levels = new ArrayList<>();
+        ProblemInstance coarsest = instance;
+        while (coarsest.getProcessCount() > target) {
+            Level level = coarsen(coarsest, maxDuration, target);
+            if (level == null)
+                break;
+            levels.add(level);
+            coarsest = level.instance;
+        }
+        if (levels.isEmpty()) {
+            logger.info("Multilevel: nothing to coarsen, solving the joint model");
+            return null;
+        }
+        StringBuilder sizes = new StringBuilder().append(instance.getProcessCount());
+        for (Level level : levels) {
+            sizes.append(" -> ").append(level.instance.getProcessCount());
+        }
+        logger.info("Multilevel: {} levels, processes {}, conflicting pairs {} -> {}", levels.size(), sizes,
+                instance.getConflictPairCount(), coarsest.getConflictPairCount());
+
+        ExecutionSettings coarseSettings = settings.copy();
+        coarseSettings.setEngine(ExecutionSettings.Engine.CP_SAT);
+        coarseSettings.setTimeLimit(Duration.ofNanos(Math.max(0, deadline - System.nanoTime()) / 2));
+        // a checkpoint belongs to the whole instance
+        coarseSettings.setCheckpointFile(null);
+        coarseSettings.setRestartFromCheckpoint(false);
+        SolveHandle coarseStage = nextStage();
+        SolverOutput coarseOutput = solver.solve(coarsest, coarseSettings, coarseStage, null);
+        coarseStage.complete(coarseOutput);
+        if (coarseOutput.getComputerAssignment() == null)
+            return null;
+        logger.info("Multilevel: coarsest makespan {} ({})", coarseOutput.getMakespan(),
+                coarseOutput.getSolverStatus());
+
+        int[] computers = coarseOutput.getComputerAssignment();
+        int[] starts = coarseOutput.getStartTimes();
+        ExecutionSettings refineSettings = settings.copy();
+        refineSettings.setEngine(ExecutionSettings.Engine.LNS);
+        SolverOutput solverOutput = null;
+        int subproblems = 0;
+        for (int l = levels.size() - 1; l >= 0; l--) {
+            Level level = levels.get(l);
+            ProblemInstance finer = l == 0 ? instance : levels.get(l - 1).instance;
+            int[] finerComputers = new int[finer.getProcessCount()];
+            int[] finerStarts = new int[finer.getProcessCount()];
+            for (int g = 0; g < level.members.length; g++) {
+                int time = starts[g];
+                for (int p : level.members[g]) {
+                    finerComputers[p] = computers[g];
+                    finerStarts[p] = time;
+                    time += finer.getDurations()[p];
+                }
+            }
+            long now = System.nanoTime();
+            long levelDeadline = now + Math.max(0, deadline - now) / (l + 1);
+            SolveHandle levelStage = l == 0 ? handle : nextStage();
+            solverOutput = new LnsSolver().solve(finer, refineSettings, levelStage,
+                    new IntermediateSolution(finerComputers, finerStarts, 0, 0, 0), levelDeadline);
+            if (l > 0) {
+                levelStage.complete(solverOutput);
+            }
+            subproblems += solverOutput.getLnsSubproblems();
+            computers = solverOutput.getComputerAssignment();
+            starts = solverOutput.getStartTimes();
+            logger.trace("Multilevel: level {} of {} processes, makespan {}", l, finer.getProcessCount(),
+                    solverOutput.getMakespan());
+        }
+
+        solverOutput.setEngine(ExecutionSettings.Engine.MULTILEVEL.name());
+        solverOutput.setMultilevelLevels(levels.size());
+        solverOutput.setCoarseProcessCount(coarsest.getProcessCount());
+        solverOutput.setLnsSubproblems(subproblems);
+        solverOutput.setHintSource(coarseOutput.getHintSource());
+        solverOutput.setBoosterStrategy(coarseOutput.getBoosterStrategy());
+        solverOutput.setSolverWallTime((System.nanoTime() - solveStart) / 1e9);
+        logger.info("Multilevel: makespan {}, bound {} in {} s", solverOutput.getMakespan(),
+                solverOutput.getLowerBound(), solverOutput.getSolverWallTime());
+        return solverOutput;
+    }
+
+    /**
+     * @return a handle for the next coarse stage, cancelled with the solve
+     */
+    private SolveHandle nextStage() {
+        SolveHandle next = new SolveHandle();
+        stage = next;
+        if (stopped) {
+            next.cancel();
+        }
+        return next;
+    }
+
+    private void stop() {
+        stopped = true;
+        SolveHandle current = stage;
+        if (current != null) {
+            current.cancel();
+        }
+    }
+}
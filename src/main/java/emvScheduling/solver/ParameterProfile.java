@@ -0,0 +1,150 @@
+package emvScheduling.solver;
+
+import com.google.ortools.sat.SatParameters;
+import com.google.protobuf.TextFormat;
+import emvScheduling.domain.ExecutionSettings;
+import lombok.Getter;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * a named set of SatParameters, in protobuf text format, applied over the ones set by
+ * {@link CpSolver#setParameters(SatParameters.Builder, emvScheduling.domain.ExecutionSettings)}
+ */
+@Getter
+public class ParameterProfile {
+    private static final String RANKED_HEADER = "rank,name,score,boosterLooseReviewRound,satParameters";
+    private static final Map<String, ParameterProfile> BEST_OF_FILE = new ConcurrentHashMap<>();
+
+    /**
+     * the settings the comments of CpSolver report as better sometimes and worse sometimes
+     */
+    public static final List<ParameterProfile> BUILT_IN = List.of(
+            new ParameterProfile("default", ""),
+            new ParameterProfile("portfolio", "search_branching: PORTFOLIO_SEARCH"),
+            new ParameterProfile("fixed", "search_branching: FIXED_SEARCH"),
+            new ParameterProfile("symmetry2", "symmetry_level: 2"),
+            new ParameterProfile("noLns", "use_lns: false"),
+            new ParameterProfile("noRandomization", "randomize_search: false"),
+            new ParameterProfile("noPresolve", "cp_model_presolve: false"));
+
+    private final String name;
+    private final String satParameters;
+    private final Integer boosterLooseReviewRound;//null to keep the one of the settings
+
+    public ParameterProfile(String name, String satParameters) {
+        this(name, satParameters, null);
+    }
+
+    public ParameterProfile(String name, String satParameters, Integer boosterLooseReviewRound) {
+        this.name = name;
+        this.satParameters = satParameters;
+        this.boosterLooseReviewRound = boosterLooseReviewRound;
+    }
+
+    public void applyTo(SatParameters.Builder parameters) {
+        try {
+            TextFormat.merge(satParameters, parameters);
+        } catch (TextFormat.ParseException e) {
+            throw new RuntimeException("Invalid SatParameters in profile " + name + ": " + satParameters, e);
+        }
+    }
+
+    /**
+     * @param names comma separated names of built-in profiles
+     * @return
+     */
+    public static List<ParameterProfile> byNames(String names) {
+        List<ParameterProfile> profiles = new ArrayList<>();
+        for (String name : names.split(",")) {
+            ParameterProfile profile = BUILT_IN.stream()
+                    .filter(p -> p.getName().equals(name.trim()))
+                    .findFirst()
+                    .orElseThrow(() -> new RuntimeException("Unknown parameter profile: " + name));
+            profiles.add(profile);
+        }
+        return profiles;
+    }
+
+    /**
+     * @param satParameters SatParameters in text format, applied if not null
+     * @param parameters
+     */
+    public static void applyTo(String satParameters, SatParameters.Builder parameters) {
+        if (satParameters != null) {
+            new ParameterProfile("settings", satParameters).applyTo(parameters);
+        }
+    }
+
+    /**
+     * writes profiles, best first, as rank,name,score,boosterLooseReviewRound,satParameters lines
+     *
+     * @param file
+     * @param profiles
+     * @param scores   score of each profile, lower is better
+     * @throws IOException
+     */
+    public static void writeRanked(Path file, List<ParameterProfile> profiles, List<Double> scores) throws IOException {
+        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(file))) {
+            writer.println(RANKED_HEADER);
+            for (int i = 0; i < profiles.size(); i++) {
+                ParameterProfile profile = profiles.get(i);
+                writer.println(String.format("%d,%s,%f,%s,%s", i + 1, profile.getName(), scores.get(i),
+                        profile.getBoosterLooseReviewRound() == null ? "" : profile.getBoosterLooseReviewRound(),
+                        profile.getSatParameters()));
+            }
+        }
+    }
+
+    /**
+     * @param file written by {@link #writeRanked(Path, List, List)}
+     * @return the first ranked profile of the file, read once per file
+     */
+    public static ParameterProfile readBest(String file) {
+        return BEST_OF_FILE.computeIfAbsent(file, f -> {
+            try (BufferedReader reader = Files.newBufferedReader(Paths.get(f))) {
+                String header = reader.readLine();
+                String line = reader.readLine();
+                if (header == null || line == null)
+                    throw new RuntimeException("No profile in " + f);
+                // satParameters is the last column, so it may contain commas
+                String[] parts = line.split(",", 5);
+                return new ParameterProfile(parts[1], parts[4],
+                        parts[3].isEmpty() ? null : Integer.parseInt(parts[3]));
+            } catch (IOException e) {
+                throw new RuntimeException("Error reading parameter profile file " + f, e);
+            }
+        });
+    }
+
+    /**
+     * replaces satParameters and boosterLooseReviewRound of the settings by the best profile of their
+     * parameterProfileFile, if any
+     *
+     * @param settings
+     */
+    public static void applyProfileFile(ExecutionSettings settings) {
+        if (settings.getParameterProfileFile() == null)
+            return;
+        ParameterProfile best = readBest(settings.getParameterProfileFile());
+        settings.setSatParameters(best.getSatParameters());
+        if (best.getBoosterLooseReviewRound() != null) {
+            settings.setBoosterLooseReviewRound(best.getBoosterLooseReviewRound());
+        }
+    }
+
+    @Override
+    public String toString() {
+        return name + "{" + satParameters + (boosterLooseReviewRound == null ? "" :
+                ", looseReviewRound=" + boosterLooseReviewRound) + "}";
+    }
+}
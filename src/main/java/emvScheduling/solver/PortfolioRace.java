@@ -0,0 +1,170 @@
+package emvScheduling.solver;
+
+import com.google.ortools.sat.CpModel;
+import com.google.ortools.sat.CpSolverStatus;
+import emvScheduling.domain.ExecutionSettings;
+import emvScheduling.domain.IntermediateSolution;
+import lombok.Getter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * races several native solvers, each configured by a {@link ParameterProfile}, on clones of the same model. The
+ * workers of the settings are shared among them.
+ * <p>
+ * A running native solve cannot be given a new objective bound, so the racers are tightened through the best known
+ * makespan instead: all of them stop once the best bound of any racer, rounded up since the makespan is an integer,
+ * meets the best makespan of any racer. The bound of a racer is valid for all, since the models are the same, so no
+ * racer can be beaten before the others.
+ */
+public class PortfolioRace {
+    protected final static transient Logger logger = LoggerFactory.getLogger(PortfolioRace.class);
+
+    private final SchedulingVariables vars;
+    private final List<ParameterProfile> profiles;
+    private final List<CpModel> models = new ArrayList<>();
+    private final List<com.google.ortools.sat.CpSolver> solvers = new ArrayList<>();
+
+    private long bestMakespan = Long.MAX_VALUE;
+    @Getter
+    private double bestBound = Double.NEGATIVE_INFINITY;
+    private boolean proven;//the best makespan met the best bound before any racer proved it alone
+    private int winner;
+    @Getter
+    private double wallTime;//in seconds
+
+    public PortfolioRace(CpModel model, SchedulingVariables vars, List<ParameterProfile> profiles,
+                         ExecutionSettings settings) {
+        this.vars = vars;
+        this.profiles = profiles;
+        int workers = settings.getNumberOfWorkers();
+        for (int i = 0; i < profiles.size(); i++) {
+            // the first racer solves the original model, the others a clone with the same variable indices
+            models.add(i == 0 ? model : model.getClone());
+            com.google.ortools.sat.CpSolver solver = new com.google.ortools.sat.CpSolver();
+            CpSolver.setParameters(solver.getParameters(), settings);
+            solver.getParameters().setNumWorkers(Math.max(1,
+                    workers / profiles.size() + (i < workers % profiles.size() ? 1 : 0)));
+            profiles.get(i).applyTo(solver.getParameters());
+            solvers.add(solver);
+        }
+    }
+
+    /**
+     * @param listeners     receive every solution that improves the best makespan of the race
+     * @param boundCallback receives every improvement of the best bound of the race
+     * @return status of the race: OPTIMAL if a racer proved it or the best bound met the best makespan
+     */
+    public CpSolverStatus solve(List<IntermediateSolutionListener> listeners, Consumer<Double> boundCallback) {
+        long start = System.nanoTime();
+        ExecutorService pool = Executors.newFixedThreadPool(profiles.size());
+        List<Future<CpSolverStatus>> futures = new ArrayList<>();
+        for (int i = 0; i < profiles.size(); i++) {
+            int racer = i;
+            IntermediateSolutionCallback callback = new IntermediateSolutionCallback(vars);
+            callback.addListener(solution -> onSolution(solution, listeners));
+            solvers.get(racer).setBestBoundCallback(bound -> onBound(bound, boundCallback));
+            futures.add(pool.submit(() -> solvers.get(racer).solve(models.get(racer), callback)));
+        }
+
+        CpSolverStatus[] statuses = new CpSolverStatus[profiles.size()];
+        try {
+            for (int i = 0; i < profiles.size(); i++) {
+                statuses[i] = futures.get(i).get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            stopSearch();
+            throw new RuntimeException("Interrupted while racing", e);
+        } catch (ExecutionException e) {
+            stopSearch();
+            throw new RuntimeException("A racer failed", e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+        wallTime = (System.nanoTime() - start) / 1e9;
+
+        CpSolverStatus status = null;
+        for (int i = 0; i < profiles.size(); i++) {
+            logger.trace("Racer {}: {}, objective {}, bound {}", profiles.get(i), statuses[i],
+                    solvers.get(i).objectiveValue(), solvers.get(i).bestObjectiveBound());
+            if (statuses[i] == CpSolverStatus.INFEASIBLE || statuses[i] == CpSolverStatus.MODEL_INVALID) {
+                // a proof of one racer holds for all
+                winner = i;
+                return statuses[i];
+            }
+            if (statuses[i] != CpSolverStatus.OPTIMAL && statuses[i] != CpSolverStatus.FEASIBLE)
+                continue;
+            if (status == null || solvers.get(i).objectiveValue() < solvers.get(winner).objectiveValue()
+                    || (solvers.get(i).objectiveValue() == solvers.get(winner).objectiveValue()
+                    && statuses[i] == CpSolverStatus.OPTIMAL)) {
+                winner = i;
+                status = statuses[i];
+            }
+        }
+        if (status == null) {
+            winner = 0;
+            return statuses[0];
+        }
+        synchronized (this) {
+            if (proven) {
+                status = CpSolverStatus.OPTIMAL;
+            }
+        }
+        logger.trace("Race won by {} with {}", profiles.get(winner), status);
+        return status;
+    }
+
+    private synchronized void onSolution(IntermediateSolution solution, List<IntermediateSolutionListener> listeners) {
+        if (solution.getMakespan() >= bestMakespan)
+            return;
+        bestMakespan = solution.getMakespan();
+        IntermediateSolution raceSolution = new IntermediateSolution(solution.getComputerAssignment(),
+                solution.getStartTimes(), solution.getMakespan(), Math.max(bestBound, solution.getBound()),
+                solution.getWallTime());
+        for (IntermediateSolutionListener listener : listeners) {
+            listener.onSolution(raceSolution);
+        }
+        stopIfProven();
+    }
+
+    private synchronized void onBound(double bound, Consumer<Double> boundCallback) {
+        if (bound > bestBound) {
+            bestBound = bound;
+            boundCallback.accept(bound);
+        }
+        stopIfProven();
+    }
+
+    /**
+     * stops all the racers once the best makespan is proven optimal
+     */
+    private void stopIfProven() {
+        if (Math.ceil(bestBound - 1e-6) >= bestMakespan) {
+            proven = true;
+            stopSearch();
+        }
+    }
+
+    public void stopSearch() {
+        for (com.google.ortools.sat.CpSolver solver : solvers) {
+            solver.stopSearch();
+        }
+    }
+
+    public com.google.ortools.sat.CpSolver getWinnerSolver() {
+        return solvers.get(winner);
+    }
+
+    public ParameterProfile getWinnerProfile() {
+        return profiles.get(winner);
+    }
+}
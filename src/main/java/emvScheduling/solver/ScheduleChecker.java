@@ -0,0 +1,66 @@
+package emvScheduling.solver;
+
+import emvScheduling.domain.ProblemInstance;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * checks schedules built outside the CP model (booster, reductions, ...) against the problem instance
+ */
+public class ScheduleChecker {
+
+    /**
+     * @param instance
+     * @param computers computer of each process
+     * @param starts    start time of each process
+     * @return true if no two processes on the same computer and no two conflicting processes overlap
+     */
+    public static boolean isFeasible(ProblemInstance instance, int[] computers, int[] starts) {
+        int processCount = instance.getProcessCount();
+        int computerCount = instance.getComputerCount();
+        if (computers.length != processCount || starts.length != processCount)
+            return false;
+
+        List<List<Integer>> computerProcesses = new ArrayList<>(computerCount);
+        for (int c = 0; c < computerCount; c++) {
+            computerProcesses.add(new ArrayList<>());
+        }
+        for (int p = 0; p < processCount; p++) {
+            if (computers[p] < 0 || computers[p] >= computerCount || starts[p] < 0)
+                return false;
+            computerProcesses.get(computers[p]).add(p);
+        }
+        for (List<Integer> onComputer : computerProcesses) {
+            onComputer.sort(Comparator.comparingInt(p -> starts[p]));
+            for (int k = 1; k < onComputer.size(); k++) {
+                int previous = onComputer.get(k - 1);
+                if (starts[previous] + instance.getDurations()[previous] > starts[onComputer.get(k)])
+                    return false;
+            }
+        }
+        int[] offsets = instance.getConflictOffsets();
+        int[] targets = instance.getConflictTargets();
+        for (int p = 0; p < processCount; p++) {
+            for (int k = offsets[p]; k < offsets[p + 1]; k++) {
+                if (targets[k] > p && overlap(instance, starts, p, targets[k]))
+                    return false;
+            }
+        }
+        return true;
+    }
+
+    static boolean overlap(ProblemInstance instance, int[] starts, int p1, int p2) {
+        return starts[p1] < starts[p2] + instance.getDurations()[p2]
+                && starts[p2] < starts[p1] + instance.getDurations()[p1];
+    }
+
+    public static int makespan(ProblemInstance instance, int[] starts) {
+        int makespan = 0;
+        for (int p = 0; p < starts.length; p++) {
+            makespan = Math.max(makespan, starts[p] + instance.getDurations()[p]);
+        }
+        return makespan;
+    }
+}
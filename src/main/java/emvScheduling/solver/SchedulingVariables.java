@@ -0,0 +1,26 @@
+package emvScheduling.solver;
+
+import com.google.ortools.sat.IntVar;
+import com.google.ortools.sat.IntervalVar;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * decision variables of the CP model, indexed by process id
+ */
+@Getter
+public class SchedulingVariables {
+    private final IntVar[] computers;
+    private final IntVar[] starts;
+    private final IntVar[] ends;
+    private final IntervalVar[] intervals;
+    @Setter
+    private IntVar makespan;
+
+    public SchedulingVariables(int processCount) {
+        computers = new IntVar[processCount];
+        starts = new IntVar[processCount];
+        ends = new IntVar[processCount];
+        intervals = new IntervalVar[processCount];
+    }
+}
@@ -0,0 +1,309 @@
+package emvScheduling.solver;
+
+import com.google.ortools.sat.CpSolverStatus;
+import emvScheduling.domain.ExecutionSettings;
+import emvScheduling.domain.IntermediateSolution;
+import emvScheduling.domain.ProblemInstance;
+import emvScheduling.domain.SolverOutput;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * splits the instance along the connected components of the conflict graph, which only compete for the computers:
+ * <ol>
+ *     <li>the components are found by union-find over the conflicting pairs and packed, heaviest first, into at most
+ *     computerCount shards of balanced total duration</li>
+ *     <li>each shard gets a number of computers proportional to its total duration (at least one) and is solved as
+ *     its own CP-SAT model, the shards in parallel with the workers shared among them the same way</li>
+ *     <li>while time is left, a computer is moved from the shard that ends first to the shard that ends last, and
+ *     both are solved again within a slice of the time left; the move is kept if the makespan decreases</li>
+ * </ol>
+ * A shard whose search finds no schedule keeps the booster one. Each shard owns its computers, so the schedule is
+ * optimal only when it meets the lower bound of the whole instance.
+ */
+public class ShardingSolver {
+    protected final static transient Logger logger = LoggerFactory.getLogger(ShardingSolver.class);
+
+    private final CpSolver solver;
+
+    ShardingSolver(CpSolver solver) {
+        this.solver = solver;
+    }
+
+    /**
+     * @return the shards, as lists of processes in increasing order
+     */
+    static List<int[]> shards(ProblemInstance instance) {
+        int processCount = instance.getProcessCount();
+        int[] parent = new int[processCount];
+        int[] size = new int[processCount];
+        for (int p = 0; p < processCount; p++) {
+            parent[p] = p;
+            size[p] = 1;
+        }
+        int[] offsets = instance.getConflictOffsets();
+        int[] targets = instance.getConflictTargets();
+        for (int p = 0; p < processCount; p++) {
+            for (int k = offsets[p]; k < offsets[p + 1]; k++) {
+                int root1 = find(parent, p);
+                int root2 = find(parent, targets[k]);
+                if (root1 != root2) {
+                    if (size[root1] < size[root2]) {
+                        int swap = root1;
+                        root1 = root2;
+                        root2 = swap;
+                    }
+                    parent[root2] = root1;
+                    size[root1] += size[root2];
+                }
+            }
+        }
+
+        Map<Integer, List<Integer>> components = new HashMap<>();
+        long[] componentLoads = new long[processCount];
+        for (int p = 0; p < processCount; p++) {
+            int root = find(parent, p);
+            components.computeIfAbsent(root, k -> new ArrayList<>()).add(p);
+            componentLoads[root] += instance.getDurations()[p];
+        }
+        List<Integer> roots = new ArrayList<>(components.keySet());
+        roots.sort(Comparator.comparingLong((Integer root) -> componentLoads[root]).reversed()
+                .thenComparingInt(root -> root));
+
+        // the heaviest component first into the lightest shard
+        int shardCount = Math.min(roots.size(), instance.getComputerCount());
+        List<List<Integer>> shards = new ArrayList<>(shardCount);
+        long[] shardLoads = new long[shardCount];
+        PriorityQueue<Integer> lightest = new PriorityQueue<>(
+                Comparator.comparingLong((Integer shard) -> shardLoads[shard]).thenComparingInt(shard -> shard));
+        for (int s = 0; s < shardCount; s++) {
+            shards.add(new ArrayList<>());
+            lightest.add(s);
+        }
+        for (int root : roots) {
+            int shard = lightest.poll();
+            shards.get(shard).addAll(components.get(root));
+            shardLoads[shard] += componentLoads[root];
+            lightest.add(shard);
+        }
+        List<int[]> result = new ArrayList<>(shardCount);
+        for (List<Integer> shard : shards) {
+            int[] processes = shard.stream().mapToInt(Integer::intValue).sorted().toArray();
+            result.add(processes);
+        }
+        return result;
+    }
+
+    private static int find(int[] parent, int p) {
+        while (parent[p] != p) {
+            parent[p] = parent[parent[p]];
+            p = parent[p];
+        }
+        return p;
+    }
+
+    /**
+     * @param loads
+     * @param count computers or workers to share, at least one per shard
+     * @return share of each shard, proportional to its load by largest remainder, at least one each
+     */
+    static int[] allocate(long[] loads, int count) {
+        int shardCount = loads.length;
+        int[] shares = new int[shardCount];
+        long total = Arrays.stream(loads).sum();
+        int spare = count - shardCount;
+        double[] remainders = new double[shardCount];
+        int given = 0;
+        for (int s = 0; s < shardCount; s++) {
+            double share = total == 0 ? 0 : (double) spare * loads[s] / total;
+            shares[s] = 1 + (int) share;
+            remainders[s] = share - (int) share;
+            given += (int) share;
+        }
+        Integer[] byRemainder = new Integer[shardCount];
+        for (int s = 0; s < shardCount; s++) {
+            byRemainder[s] = s;
+        }
+        Arrays.sort(byRemainder, (a, b) -> Double.compare(remainders[b], remainders[a]));
+        for (int k = 0; k < spare - given; k++) {
+            shares[byRemainder[k % shardCount]]++;
+        }
+        return shares;
+    }
+
+    /**
+     * @param instance
+     * @param settings
+     * @param handle   receives the merged schedule, may be null
+     * @return the output, or null if the conflict graph is connected and the joint model is needed
+     */
+    public SolverOutput solve(ProblemInstance instance, ExecutionSettings settings, SolveHandle handle) {
+        long solveStart = System.nanoTime();
+        List<int[]> shards = shards(instance);
+        int shardCount = shards.size();
+        if (shardCount < 2) {
+            logger.info("Sharding: a single shard, solving the joint model");
+            return null;
+        }
+        // the heaviest clique of the whole instance bounds its makespan, as on the joint path; covered before the
+        // shards take the time
+        MakespanLowerBound bound = MakespanLowerBound.compute(instance,
+                instance.getConflictPairCount() > 0 ? ConflictCliqueCover.cover(instance, settings) : null);
+        long[] loads = new long[shardCount];
+        for (int s = 0; s < shardCount; s++) {
+            for (int p : shards.get(s)) {
+                loads[s] += instance.getDurations()[p];
+            }
+        }
+        int[] computers = allocate(loads, instance.getComputerCount());
+        logger.info("Sharding: {} shards, processes {}, computers {}", shardCount,
+                Arrays.toString(shards.stream().mapToInt(shard -> shard.length).toArray()),
+                Arrays.toString(computers));
+
+        // the first half of the time for the shards, the rest for the rebalancing
+        Duration initialTimeLimit = settings.getTimeLeft().dividedBy(2);
+        SolverOutput[] outputs = new SolverOutput[shardCount];
+        // with more shards than workers, one worker each and at most numberOfWorkers shards at a time
+        int poolSize = Math.max(1, Math.min(shardCount, settings.getNumberOfWorkers()));
+        int[] workers = allocate(loads, Math.max(shardCount, settings.getNumberOfWorkers()));
+        ExecutorService pool = Executors.newFixedThreadPool(poolSize, r -> {
+            Thread thread = new Thread(r, "shard-solver");
+            thread.setDaemon(true);
+            return thread;
+        });
+        int rebalances = 0;
+        try {
+            List<Future<SolverOutput>> futures = new ArrayList<>(shardCount);
+            for (int s = 0; s < shardCount; s++) {
+                futures.add(pool.submit(solveShard(instance, settings, shards.get(s), computers[s], workers[s],
+                        initialTimeLimit)));
+            }
+            for (int s = 0; s < shardCount; s++) {
+                outputs[s] = futures.get(s).get();
+            }
+
+            while (handle == null || !handle.isCancelled()) {
+                int last = 0;
+                int first = -1;
+                for (int s = 0; s < shardCount; s++) {
+                    if (outputs[s].getMakespan() > outputs[last].getMakespan()) {
+                        last = s;
+                    }
+                }
+                for (int s = 0; s < shardCount; s++) {
+                    if (s != last && computers[s] > 1 && (first < 0
+                            || outputs[s].getMakespan() < outputs[first].getMakespan())) {
+                        first = s;
+                    }
+                }
+                Duration timeLeft = settings.getTimeLeft();
+                if (first < 0 || timeLeft.isZero())
+                    break;
+                // about one move per shard is expected, the later moves get the time the earlier ones left
+                Duration slice = timeLeft.dividedBy(Math.max(1, shardCount - rebalances));
+                int[] moveWorkers = allocate(new long[]{loads[last], loads[first]},
+                        Math.max(2, settings.getNumberOfWorkers()));
+                if (poolSize < 2) {
+                    // the two solves run one after the other
+                    slice = slice.dividedBy(2);
+                }
+                Future<SolverOutput> lastFuture = pool.submit(solveShard(instance, settings, shards.get(last),
+                        computers[last] + 1, moveWorkers[0], slice));
+                Future<SolverOutput> firstFuture = pool.submit(solveShard(instance, settings, shards.get(first),
+                        computers[first] - 1, moveWorkers[1], slice));
+                SolverOutput lastOutput = lastFuture.get();
+                SolverOutput firstOutput = firstFuture.get();
+                double before = outputs[last].getMakespan();
+                double after = Math.max(lastOutput.getMakespan(), firstOutput.getMakespan());
+                if (after >= before)
+                    break;
+                logger.info("Computer moved from shard {} to shard {}: makespan {} -> {}", first, last, before,
+                        after);
+                computers[last]++;
+                computers[first]--;
+                outputs[last] = lastOutput;
+                outputs[first] = firstOutput;
+                rebalances++;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while solving the shards", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("A shard failed", e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+
+        // each shard on its own range of computers
+        int processCount = instance.getProcessCount();
+        int[] computerAssignment = new int[processCount];
+        int[] startTimes = new int[processCount];
+        int firstComputer = 0;
+        long makespan = 0;
+        boolean allOptimal = true;
+        for (int s = 0; s < shardCount; s++) {
+            int[] processes = shards.get(s);
+            for (int k = 0; k < processes.length; k++) {
+                computerAssignment[processes[k]] = firstComputer + outputs[s].getComputerAssignment()[k];
+                startTimes[processes[k]] = outputs[s].getStartTimes()[k];
+            }
+            firstComputer += computers[s];
+            makespan = Math.max(makespan, outputs[s].getMakespan().longValue());
+            allOptimal &= CpSolverStatus.OPTIMAL.toString().equals(outputs[s].getSolverStatus());
+        }
+        int lowerBound = bound.getValue();
+        boolean optimal = makespan <= lowerBound;
+
+        SolverOutput solverOutput = new SolverOutput();
+        solverOutput.setEngine(ExecutionSettings.Engine.SHARDING.name());
+        solverOutput.setHorizon((int) instance.getTotalDuration());
+        solverOutput.setConflictPairCount(instance.getConflictPairCount());
+        solverOutput.setShardCount(shardCount);
+        solverOutput.setShardRebalances(rebalances);
+        solverOutput.setLowerBound(lowerBound);
+        solverOutput.setBestObjectiveBound((double) (optimal ? makespan : lowerBound));
+        solverOutput.setSolverStatus((optimal ? CpSolverStatus.OPTIMAL : CpSolverStatus.FEASIBLE).toString());
+        solverOutput.setStopReason(optimal ? SolverOutput.StopReason.OPTIMAL : SolverOutput.StopReason.TIME_LIMIT);
+        solverOutput.setMakespan((double) makespan);
+        solverOutput.setComputerAssignment(computerAssignment);
+        solverOutput.setStartTimes(startTimes);
+        solverOutput.setSolverWallTime((System.nanoTime() - solveStart) / 1e9);
+        if (handle != null) {
+            handle.onSolution(new IntermediateSolution(computerAssignment, startTimes, makespan,
+                    solverOutput.getBestObjectiveBound(), solverOutput.getSolverWallTime()));
+        }
+        logger.info("Sharding: makespan {}, bound {}, {} rebalances, shards {}", makespan, lowerBound, rebalances,
+                allOptimal ? "all optimal" : "not all optimal");
+        return solverOutput;
+    }
+
+    private Callable<SolverOutput> solveShard(ProblemInstance instance, ExecutionSettings settings, int[] processes,
+                                              int computerCount, int workers, Duration timeLimit) {
+        return () -> {
+            ExecutionSettings shardSettings = settings.copy();
+            shardSettings.setEngine(ExecutionSettings.Engine.CP_SAT);
+            shardSettings.setNumberOfWorkers(workers);
+            shardSettings.setTimeLimit(timeLimit);
+            // a checkpoint belongs to the whole instance
+            shardSettings.setCheckpointFile(null);
+            shardSettings.setRestartFromCheckpoint(false);
+            ProblemInstance shard = instance.subInstance(processes, computerCount);
+            SolverOutput output = solver.solve(shard, shardSettings);
+            if (output.getComputerAssignment() == null) {
+                // the merge needs a schedule of every shard, the booster one satisfies the conflicts
+                SolverBooster.Suggestion suggestion = SolverBooster.getBestSuggestion(shard, shardSettings);
+                logger.info("Shard of {} processes without schedule ({}), booster makespan {} used",
+                        processes.length, output.getSolverStatus(), suggestion.getMakespan());
+                output.setComputerAssignment(suggestion.getComputers());
+                output.setStartTimes(suggestion.getStartTimes());
+                output.setMakespan((double) suggestion.getMakespan());
+                output.setSolverStatus(CpSolverStatus.FEASIBLE.toString());
+            }
+            return output;
+        };
+    }
+}
@@ -0,0 +1,220 @@
+package emvScheduling.solver;
+
+import emvScheduling.domain.IntermediateSolution;
+import emvScheduling.domain.ProblemInstance;
+import lombok.Getter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * best schedules found for the instances solved before, kept across runs so a sweep solving the same instance again
+ * (with other numberOfWorkers or time limit) starts from the best known schedule instead of the booster one.
+ * <p>
+ * There is one {@link Checkpoint} file per (processes and conflicts, computer count) in the directory. An instance that
+ * only differs in its computer count reuses the schedule of the closest computer count, repaired: processes keep their
+ * order by start time and their computer when it still exists, the others go to the computer that is free first, and
+ * each process starts as soon as its computer and its conflicting processes placed before it allow.
+ * <p>
+ * The first and final solution times of the first solve of an instance hinted by the booster are kept beside it as a
+ * {@link Baseline}, so the solves hinted from the memory can report how much sooner their solutions arrive.
+ */
+public class SolutionMemory {
+    protected final static transient Logger logger = LoggerFactory.getLogger(SolutionMemory.class);
+
+    private final Path directory;
+
+    @Getter
+    public static class Recall {
+        private final IntermediateSolution solution;
+        private final boolean repaired;//found with another computer count, so its bound does not hold
+
+        Recall(IntermediateSolution solution, boolean repaired) {
+            this.solution = solution;
+            this.repaired = repaired;
+        }
+    }
+
+    /**
+     * first and final solution times of a solve hinted by the booster, in seconds from the start of the search
+     */
+    @Getter
+    public static class Baseline {
+        private final double firstSolutionTime;
+        private final double finalSolutionTime;
+
+        Baseline(double firstSolutionTime, double finalSolutionTime) {
+            this.firstSolutionTime = firstSolutionTime;
+            this.finalSolutionTime = finalSolutionTime;
+        }
+    }
+
+    public SolutionMemory(Path directory) {
+        this.directory = directory;
+    }
+
+    private Path file(long processFingerprint, int computerCount) {
+        return directory.resolve(String.format("%016x-%d.ckpt", processFingerprint, computerCount));
+    }
+
+    private Path baselineFile(ProblemInstance instance) {
+        return directory.resolve(String.format("%016x-%d.baseline", instance.getProcessFingerprint(),
+                instance.getComputerCount()));
+    }
+
+    /**
+     * @param instance
+     * @return the solution times of the first booster-hinted solve of the instance, or null if there is none
+     */
+    public Baseline getBaseline(ProblemInstance instance) {
+        Path file = baselineFile(instance);
+        if (!Files.exists(file))
+            return null;
+        try {
+            String[] times = Files.readString(file).trim().split(",");
+            return new Baseline(Double.parseDouble(times[0]), Double.parseDouble(times[1]));
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Baseline {} cannot be read", file, e);
+            return null;
+        }
+    }
+
+    /**
+     * keeps the solution times of a booster-hinted solve of the instance, unless some are kept already
+     *
+     * @param instance
+     * @param firstSolutionTime in seconds from the start of the search
+     * @param finalSolutionTime in seconds from the start of the search
+     */
+    public void rememberBaseline(ProblemInstance instance, double firstSolutionTime, double finalSolutionTime) {
+        Path file = baselineFile(instance);
+        if (Files.exists(file))
+            return;
+        try {
+            Files.createDirectories(directory);
+            Files.writeString(file, firstSolutionTime + "," + finalSolutionTime);
+        } catch (IOException e) {
+            logger.warn("Baseline {} cannot be written", file, e);
+        }
+    }
+
+    /**
+     * @param instance
+     * @return the best remembered schedule of the instance, repaired if it was found with another computer count, or
+     * null if there is none
+     */
+    public Recall recall(ProblemInstance instance) {
+        if (!Files.isDirectory(directory))
+            return null;
+        long processFingerprint = instance.getProcessFingerprint();
+        IntermediateSolution exact = Checkpoint.read(file(processFingerprint, instance.getComputerCount()),
+                processFingerprint, instance.getProcessCount());
+        if (exact != null && ScheduleChecker.isFeasible(instance, exact.getComputerAssignment(), exact.getStartTimes())) {
+            return new Recall(exact, false);
+        }
+
+        // the closest computer count remembered for the same processes and conflicts
+        Integer closest = null;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory,
+                String.format("%016x-*.ckpt", processFingerprint))) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                int computerCount = Integer.parseInt(name.substring(name.indexOf('-') + 1, name.indexOf('.')));
+                if (computerCount != instance.getComputerCount() && (closest == null
+                        || Math.abs(computerCount - instance.getComputerCount())
+                        < Math.abs(closest - instance.getComputerCount()))) {
+                    closest = computerCount;
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Solution memory {} cannot be listed", directory, e);
+            return null;
+        }
+        if (closest == null)
+            return null;
+        IntermediateSolution other = Checkpoint.read(file(processFingerprint, closest), processFingerprint,
+                instance.getProcessCount());
+        if (other == null)
+            return null;
+        IntermediateSolution repaired = repair(instance, other);
+        logger.info("Schedule of {} computers (makespan {}) repaired for {} computers: makespan {}", closest,
+                other.getMakespan(), instance.getComputerCount(), repaired.getMakespan());
+        return new Recall(repaired, true);
+    }
+
+    /**
+     * @param instance
+     * @param solution schedule of the same processes, possibly on another number of computers
+     * @return a schedule of the instance that keeps the order of the given one
+     */
+    static IntermediateSolution repair(ProblemInstance instance, IntermediateSolution solution) {
+        int processCount = instance.getProcessCount();
+        int computerCount = instance.getComputerCount();
+        int[] durations = instance.getDurations();
+        int[] offsets = instance.getConflictOffsets();
+        int[] targets = instance.getConflictTargets();
+        int[] oldStarts = solution.getStartTimes();
+        Integer[] order = new Integer[processCount];
+        for (int p = 0; p < processCount; p++) {
+            order[p] = p;
+        }
+        Arrays.sort(order, Comparator.comparingInt(p -> oldStarts[p]));
+
+        int[] computers = new int[processCount];
+        int[] starts = new int[processCount];
+        int[] computerFree = new int[computerCount];
+        boolean[] placed = new boolean[processCount];
+        int makespan = 0;
+        for (int p : order) {
+            int computer = solution.getComputerAssignment()[p];
+            if (computer >= computerCount) {
+                computer = 0;
+                for (int c = 1; c < computerCount; c++) {
+                    if (computerFree[c] < computerFree[computer]) {
+                        computer = c;
+                    }
+                }
+            }
+            int start = computerFree[computer];
+            for (int k = offsets[p]; k < offsets[p + 1]; k++) {
+                if (placed[targets[k]]) {
+                    start = Math.max(start, starts[targets[k]] + durations[targets[k]]);
+                }
+            }
+            computers[p] = computer;
+            starts[p] = start;
+            placed[p] = true;
+            computerFree[computer] = start + durations[p];
+            makespan = Math.max(makespan, start + durations[p]);
+        }
+        return new IntermediateSolution(computers, starts, makespan, 0, solution.getWallTime());
+    }
+
+    /**
+     * keeps the schedule if it is better than the remembered one of the same instance
+     *
+     * @param instance
+     * @param solution
+     */
+    public void remember(ProblemInstance instance, IntermediateSolution solution) {
+        long processFingerprint = instance.getProcessFingerprint();
+        Path file = file(processFingerprint, instance.getComputerCount());
+        IntermediateSolution remembered = Checkpoint.read(file, processFingerprint, instance.getProcessCount());
+        if (remembered != null && (remembered.getMakespan() < solution.getMakespan()
+                || (remembered.getMakespan() == solution.getMakespan()
+                && remembered.getBound() >= solution.getBound())))
+            return;
+        try {
+            Files.createDirectories(directory);
+            Checkpoint.write(file, processFingerprint, solution, solution.getBound());
+        } catch (IOException e) {
+            logger.warn("Solution memory {} cannot be written", file, e);
+        }
+    }
+}
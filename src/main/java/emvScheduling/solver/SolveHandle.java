@@ -0,0 +1,77 @@
+package emvScheduling.solver;
+
+import emvScheduling.domain.IntermediateSolution;
+import emvScheduling.domain.SolverOutput;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+
+/**
+ * handle of an asynchronous solve (see {@link CpSolver#solveAsync}): publishes every improving schedule, starting
+ * with the booster schedule, and completes with the final output.
+ * <p>
+ * The schedules are published from the solution callback of the native search, which must not wait for a slow
+ * subscriber: a schedule that does not fit in the buffer of a subscriber is dropped for it, a later one replacing it,
+ * and the best one always comes with the result.
+ */
+public class SolveHandle implements Flow.Publisher<IntermediateSolution>, IntermediateSolutionListener {
+    private final SubmissionPublisher<IntermediateSolution> publisher = new SubmissionPublisher<>();
+    private final CompletableFuture<SolverOutput> result = new CompletableFuture<>();
+    private volatile Runnable stopSearch;
+    private volatile boolean cancelled;
+
+    SolveHandle() {
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super IntermediateSolution> subscriber) {
+        publisher.subscribe(subscriber);
+    }
+
+    @Override
+    public void onSolution(IntermediateSolution solution) {
+        publisher.offer(solution, (subscriber, dropped) -> false);
+    }
+
+    /**
+     * stops the search; the result completes with the best schedule found so far
+     */
+    public void cancel() {
+        cancelled = true;
+        Runnable attached = stopSearch;
+        if (attached != null) {
+            attached.run();
+        }
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public CompletableFuture<SolverOutput> getResult() {
+        return result;
+    }
+
+    /**
+     * registers how to stop the running search on {@link #cancel()}, stopping it at once if cancel came first
+     *
+     * @param stopSearch
+     */
+    void attach(Runnable stopSearch) {
+        this.stopSearch = stopSearch;
+        if (cancelled) {
+            stopSearch.run();
+        }
+    }
+
+    void complete(SolverOutput output) {
+        publisher.close();
+        result.complete(output);
+    }
+
+    void completeExceptionally(Throwable throwable) {
+        publisher.closeExceptionally(throwable);
+        result.completeExceptionally(throwable);
+    }
+}
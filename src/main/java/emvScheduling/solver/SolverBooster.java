@@ -1,27 +1,175 @@
 package emvScheduling.solver;
 
 
+import emvScheduling.domain.IntermediateSolution;
 import emvScheduling.domain.ProblemFacts;
+import emvScheduling.domain.ProblemInstance;
 import it.unitn.emvscheduling.greedy.domain.Process;
 import it.unitn.emvscheduling.greedy.domain.*;
 import it.unitn.emvscheduling.greedy.solver.DispatcherSolver;
 import it.unitn.emvscheduling.greedy.solver.Strategy;
+import lombok.Getter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
 
 /**
  * this class uses declarative implementation to boost the speed of CP solver
+ * <p>
+ * By default the greedy solver runs once, with MCDF and boosterLooseReviewRound. With a boosterTimeBudgetInMillis
+ * (at most a quarter of the time left), it runs with every process sort type and every review round of
+ * boosterReviewRounds, at most numberOfWorkers at a time, and the best schedule is kept. The greedy solver does not
+ * see the conflicts, so each schedule is first repaired to satisfy them (see {@link SolutionMemory#repair}) and
+ * compared by its repaired makespan.
  */
 public class SolverBooster {
+    protected final static transient Logger logger = LoggerFactory.getLogger(SolverBooster.class);
 
     //parameters:
     private final static Strategy.ProcessSortType processSortType = Strategy.ProcessSortType.MCDF;
-    private final static int looseReviewRound = 33;
+    private final static int TIME_LEFT_SHARE = 4;//the budget is at most a quarter of the time left
+
+    @Getter
+    public static class Suggestion {
+        private final String strategy;//processSortType/looseReviewRound
+        private final int[] computers;
+        private final int[] startTimes;
+        private final long makespan;
+        private final boolean repaired;//the greedy schedule violated the conflicts
+
+        Suggestion(String strategy, int[] computers, int[] startTimes, long makespan, boolean repaired) {
+            this.strategy = strategy;
+            this.computers = computers;
+            this.startTimes = startTimes;
+            this.makespan = makespan;
+            this.repaired = repaired;
+        }
+    }
+
+    /**
+     * @param instance
+     * @param settings
+     * @return the best schedule of the greedy strategies that finished within the time budget (at least the first
+     * one to finish), satisfying the constraints of the instance
+     */
+    public static Suggestion getBestSuggestion(ProblemInstance instance,
+                                               emvScheduling.domain.ExecutionSettings settings) {
+        List<Callable<Suggestion>> strategies = strategies(instance, settings);
+        long budget = Math.min(TimeUnit.MILLISECONDS.toNanos(settings.getBoosterTimeBudgetInMillis()),
+                settings.getTimeLeft().toNanos() / TIME_LEFT_SHARE);
+        if (budget <= 0 || strategies.size() == 1) {
+            return suggest(instance, settings, processSortType, settings.getBoosterLooseReviewRound());
+        }
+
+        int parallelism = Math.max(1, Math.min(strategies.size(), Math.min(settings.getNumberOfWorkers(),
+                Runtime.getRuntime().availableProcessors())));
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        CompletionService<Suggestion> completion = new ExecutorCompletionService<>(pool);
+        for (Callable<Suggestion> strategy : strategies) {
+            completion.submit(strategy);
+        }
+        long deadline = System.nanoTime() + budget;
+        Suggestion best = null;
+        int finished = 0;
+        try {
+            while (finished < strategies.size()) {
+                long remaining = deadline - System.nanoTime();
+                // past the budget, waits only for a first schedule
+                Future<Suggestion> done = remaining > 0 ? completion.poll(remaining, TimeUnit.NANOSECONDS)
+                        : best == null ? completion.take() : null;
+                if (done == null)
+                    break;
+                finished++;
+                try {
+                    Suggestion suggestion = done.get();
+                    if (best == null || suggestion.getMakespan() < best.getMakespan()) {
+                        best = suggestion;
+                    }
+                } catch (ExecutionException e) {
+                    logger.warn("Booster strategy failed", e.getCause());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            // the strategies not started are dropped; the greedy solver cannot be interrupted, so the running ones are
+            // waited for, or they would compete with the search for the workers
+            pool.shutdownNow();
+            try {
+                pool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (best == null) {
+            return suggest(instance, settings, processSortType, settings.getBoosterLooseReviewRound());
+        }
+        logger.info("Booster: {} of {} strategies finished, best {} with makespan {}", finished, strategies.size(),
+                best.getStrategy(), best.getMakespan());
+        return best;
+    }
+
+    /**
+     * @return the configured strategy first, then every process sort type with every review round of the settings
+     */
+    private static List<Callable<Suggestion>> strategies(ProblemInstance instance,
+                                                         emvScheduling.domain.ExecutionSettings settings) {
+        Set<Integer> reviewRounds = new LinkedHashSet<>();
+        reviewRounds.add(settings.getBoosterLooseReviewRound());
+        if (settings.getBoosterReviewRounds() != null) {
+            for (String round : settings.getBoosterReviewRounds().split(",")) {
+                if (!round.isBlank()) {
+                    reviewRounds.add(Integer.parseInt(round.trim()));
+                }
+            }
+        }
+        List<Callable<Suggestion>> strategies = new ArrayList<>();
+        strategies.add(() -> suggest(instance, settings, processSortType, settings.getBoosterLooseReviewRound()));
+        for (Strategy.ProcessSortType sortType : Strategy.ProcessSortType.values()) {
+            for (int reviewRound : reviewRounds) {
+                if (sortType != processSortType || reviewRound != settings.getBoosterLooseReviewRound()) {
+                    strategies.add(() -> suggest(instance, settings, sortType, reviewRound));
+                }
+            }
+        }
+        return strategies;
+    }
+
+    private static Suggestion suggest(ProblemInstance instance, emvScheduling.domain.ExecutionSettings settings,
+                                      Strategy.ProcessSortType sortType, int reviewRound) {
+        ExecutionOutput output = getSuggestedOutput(instance, settings, new Strategy(sortType, reviewRound));
+        int[] computers = getComputers(output);
+        int[] starts = getStartTimes(output);
+        String name = sortType + "/" + reviewRound;
+        if (ScheduleChecker.isFeasible(instance, computers, starts)) {
+            return new Suggestion(name, computers, starts, ScheduleChecker.makespan(instance, starts), false);
+        }
+        IntermediateSolution repaired = SolutionMemory.repair(instance,
+                new IntermediateSolution(computers, starts, output.scheduleMakespan, 0, 0));
+        return new Suggestion(name, repaired.getComputerAssignment(), repaired.getStartTimes(),
+                repaired.getMakespan(), true);
+    }
 
-    //todo make the method for bulk process
     public static ExecutionOutput getSuggestedOutput(ProblemFacts factsIn,
                                                      emvScheduling.domain.ExecutionSettings settingsIn) {
+        return getSuggestedOutput(ProblemInstance.from(factsIn), settingsIn);
+    }
+
+    public static ExecutionOutput getSuggestedOutput(ProblemInstance instance,
+                                                     emvScheduling.domain.ExecutionSettings settingsIn) {
+        return getSuggestedOutput(instance, settingsIn,
+                new Strategy(processSortType, settingsIn.getBoosterLooseReviewRound()));
+    }
+
+    //todo make the method for bulk process
+    private static ExecutionOutput getSuggestedOutput(ProblemInstance instance,
+                                                      emvScheduling.domain.ExecutionSettings settingsIn,
+                                                      Strategy strategy) {
         //todo consider merge both projects avoiding redundant classes and conversions - if performance preserve
 
         //the values at time is not processed in deterministic approach:
@@ -29,22 +177,19 @@ public class SolverBooster {
         Integer maxSolverExecutionTimeInSeconds = -1;
 
         DispatcherSolver solver = new DispatcherSolver();
-        Strategy strategy = new Strategy(processSortType, looseReviewRound);
         ExecutionFacts facts = new ExecutionFacts();
 
-        List<Computer> computers = new ArrayList<>(factsIn.getComputers().size());
-        for(emvScheduling.domain.Computer c:factsIn.getComputers()){
-            Computer computer = new Computer(c.getId());
-            computers.add(computer);
+        List<Computer> computers = new ArrayList<>(instance.getComputerCount());
+        for (int c = 0; c < instance.getComputerCount(); c++) {
+            computers.add(new Computer(c));
         }
 
-        List<Process> processes = new ArrayList<>(factsIn.getProcesses().size());
-        for(emvScheduling.domain.Process p:factsIn.getProcesses()){
-            Process process = new Process(p.getId(), p.getExecutionTime());
-            processes.add(process);
+        List<Process> processes = new ArrayList<>(instance.getProcessCount());
+        for (int p = 0; p < instance.getProcessCount(); p++) {
+            processes.add(new Process(p, instance.getDurations()[p]));
         }
 
-        Integer timeWeight = factsIn.getTimeWeight();
+        Integer timeWeight = instance.getTimeWeight();
         Integer randomSeed = settingsIn.getRandomSeed();
 
         facts.computers = computers;
@@ -55,4 +200,28 @@ public class SolverBooster {
         ExecutionOutput output = solver.solve(facts, settings, strategy);
         return output;
     }
+
+    /**
+     * @param output
+     * @return computer of each process in the booster schedule
+     */
+    public static int[] getComputers(ExecutionOutput output) {
+        int[] computers = new int[output.processes.size()];
+        for (int p = 0; p < computers.length; p++) {
+            computers[p] = output.processes.get(p).computer.computerId;
+        }
+        return computers;
+    }
+
+    /**
+     * @param output
+     * @return start time of each process in the booster schedule
+     */
+    public static int[] getStartTimes(ExecutionOutput output) {
+        int[] starts = new int[output.processes.size()];
+        for (int p = 0; p < starts.length; p++) {
+            starts[p] = output.processes.get(p).startTime;
+        }
+        return starts;
+    }
 }
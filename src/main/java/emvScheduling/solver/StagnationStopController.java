@@ -0,0 +1,90 @@
+package emvScheduling.solver;
+
+import emvScheduling.domain.IntermediateSolution;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * stops the search once continuing is expected to cost more than it gains in parallelTimeSum (wall time + makespan).
+ * <p>
+ * The gain rate is the makespan improvement of the last window extrapolated linearly and capped by the gap to the
+ * proven bound; the cost rate is one second of wall time, expressed in makespan units (milliseconds, as the process
+ * execution times). It is checked periodically from a timer thread, since CP-SAT only calls back on new solutions.
+ */
+public class StagnationStopController implements IntermediateSolutionListener, AutoCloseable {
+    protected final static transient Logger logger = LoggerFactory.getLogger(StagnationStopController.class);
+
+    private final Runnable stopSearch;
+    private final double makespanUnitsPerSecond;
+    private final double windowInSeconds;
+    private final double checkIntervalInSeconds;
+    private final long startTime = System.nanoTime();
+    private final ScheduledExecutorService timer;
+
+    // (time in seconds, makespan) of the improvements, oldest first
+    private final List<double[]> improvements = new ArrayList<>();
+    private double bound = Double.NEGATIVE_INFINITY;
+    private volatile boolean stopped;
+
+    public StagnationStopController(Runnable stopSearch, double makespanUnitsPerSecond, double windowInSeconds,
+                                    double checkIntervalInSeconds) {
+        this.stopSearch = stopSearch;
+        this.makespanUnitsPerSecond = makespanUnitsPerSecond;
+        this.windowInSeconds = windowInSeconds;
+        this.checkIntervalInSeconds = checkIntervalInSeconds;
+        this.timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "stagnation-stop");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = (long) (checkIntervalInSeconds * 1e6);
+        timer.scheduleAtFixedRate(this::check, period, period, TimeUnit.MICROSECONDS);
+    }
+
+    private double elapsed() {
+        return (System.nanoTime() - startTime) / 1e9;
+    }
+
+    @Override
+    public synchronized void onSolution(IntermediateSolution solution) {
+        improvements.add(new double[]{elapsed(), solution.getMakespan()});
+        bound = Math.max(bound, solution.getBound());
+    }
+
+    private synchronized void check() {
+        if (stopped || improvements.isEmpty())
+            return;
+        double now = elapsed();
+        if (now - improvements.get(0)[0] < windowInSeconds)
+            return;
+        // keeps the last improvement before the window as the reference point
+        while (improvements.size() > 1 && improvements.get(1)[0] <= now - windowInSeconds) {
+            improvements.remove(0);
+        }
+        double current = improvements.get(improvements.size() - 1)[1];
+        double windowGain = improvements.get(0)[1] - current;
+        double expectedGain = Math.min(current - bound, windowGain / windowInSeconds * checkIntervalInSeconds);
+        double expectedCost = checkIntervalInSeconds * makespanUnitsPerSecond;
+        if (expectedGain < expectedCost) {
+            logger.trace("Stagnation stop at {} s: makespan {}, bound {}, expected gain {} < cost {}", now, current,
+                    bound, expectedGain, expectedCost);
+            stopped = true;
+            stopSearch.run();
+        }
+    }
+
+    public boolean isStopped() {
+        return stopped;
+    }
+
+    @Override
+    public void close() {
+        timer.shutdownNow();
+    }
+}
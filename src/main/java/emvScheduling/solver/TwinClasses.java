@@ -0,0 +1,109 @@
+package emvScheduling.solver;
+
+import emvScheduling.domain.ProblemInstance;
+import lombok.Getter;
+
+import java.util.*;
+
+/**
+ * classes of interchangeable processes: same duration and same conflicting processes apart from each other, either
+ * not conflicting with each other (same neighbourhood) or conflicting with each other (same neighbourhood including
+ * themselves). Swapping the computer and start of two processes of a class gives an equivalent schedule, so the
+ * processes of a class can be required to start in increasing index order without changing the optimal makespan.
+ * <p>
+ * Classes are found by hashing the duration with the sorted row of conflicts, then comparing the rows of the
+ * processes with the same hash.
+ */
+@Getter
+public class TwinClasses {
+    private List<int[]> classes = new ArrayList<>();//processes of each class in increasing order, at least two each
+    private int processCount;//processes in the classes
+
+    public static TwinClasses compute(ProblemInstance instance) {
+        TwinClasses twins = new TwinClasses();
+        boolean[] assigned = new boolean[instance.getProcessCount()];
+        twins.group(instance, false, assigned);
+        twins.group(instance, true, assigned);
+        twins.classes.sort(Comparator.comparingInt(twinClass -> twinClass[0]));
+        return twins;
+    }
+
+    private void group(ProblemInstance instance, boolean closed, boolean[] assigned) {
+        Map<Long, List<List<Integer>>> buckets = new HashMap<>();
+        for (int p = 0; p < instance.getProcessCount(); p++) {
+            if (assigned[p])
+                continue;
+            int[] row = neighbourhood(instance, p, closed);
+            List<List<Integer>> bucket = buckets.computeIfAbsent(hash(instance.getDurations()[p], row),
+                    k -> new ArrayList<>());
+            List<Integer> twinClass = null;
+            for (List<Integer> candidate : bucket) {
+                int q = candidate.get(0);
+                if (instance.getDurations()[q] == instance.getDurations()[p]
+                        && Arrays.equals(neighbourhood(instance, q, closed), row)) {
+                    twinClass = candidate;
+                    break;
+                }
+            }
+            if (twinClass == null) {
+                twinClass = new ArrayList<>();
+                bucket.add(twinClass);
+            }
+            twinClass.add(p);
+        }
+        for (List<List<Integer>> bucket : buckets.values()) {
+            for (List<Integer> twinClass : bucket) {
+                if (twinClass.size() > 1) {
+                    for (int p : twinClass) {
+                        assigned[p] = true;
+                    }
+                    classes.add(twinClass.stream().mapToInt(Integer::intValue).toArray());
+                    processCount += twinClass.size();
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the conflicting processes in increasing order, with the process itself if closed
+     */
+    private static int[] neighbourhood(ProblemInstance instance, int process, boolean closed) {
+        int[] offsets = instance.getConflictOffsets();
+        int[] targets = instance.getConflictTargets();
+        int[] row = Arrays.copyOfRange(targets, offsets[process], offsets[process + 1] + (closed ? 1 : 0));
+        if (closed) {
+            row[row.length - 1] = process;
+            Arrays.sort(row);
+        }
+        return row;
+    }
+
+    private static long hash(int duration, int[] row) {
+        long hash = (0xcbf29ce484222325L ^ duration) * 0x100000001b3L;
+        for (int value : row) {
+            hash = (hash ^ value) * 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * reassigns the computers and starts of each class so that its processes start in increasing index order, equal
+     * starts in increasing computer order; the schedule stays equivalent
+     *
+     * @param computers computer of each process, changed in place
+     * @param starts    start time of each process, changed in place
+     */
+    public void canonicalize(int[] computers, int[] starts) {
+        for (int[] twinClass : classes) {
+            long[] slots = new long[twinClass.length];
+            for (int k = 0; k < twinClass.length; k++) {
+                slots[k] = ((long) starts[twinClass[k]] << 32) | computers[twinClass[k]];
+            }
+            Arrays.sort(slots);
+            for (int k = 0; k < twinClass.length; k++) {
+                starts[twinClass[k]] = (int) (slots[k] >>> 32);
+                computers[twinClass[k]] = (int) slots[k];
+            }
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package emvScheduling.application;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResultStoreTest {
+    @TempDir
+    Path directory;
+
+    private ResultStore open() throws IOException {
+        return new ResultStore(directory.resolve("store.dat"), directory.resolve("store.idx"));
+    }
+
+    @Test
+    void findsTheResultsOfAPreviousRun() throws IOException {
+        try (ResultStore store = open()) {
+            store.put("a", "1,2,3");
+            store.put("b", "4,5,6");
+            store.put("a", "7,8,9");
+        }
+        try (ResultStore store = open()) {
+            assertEquals("7,8,9", store.get("a"));
+            assertEquals("4,5,6", store.get("b"));
+            assertNull(store.get("c"));
+        }
+    }
+
+    @Test
+    void dropsATornAppend() throws IOException {
+        try (ResultStore store = open()) {
+            store.put("a", "1,2,3");
+            store.put("b", "4,5,6");
+        }
+        long length = Files.size(directory.resolve("store.dat"));
+        // a crash in the middle of the next record, before its index line
+        Files.write(directory.resolve("store.dat"), "c\t7,8".getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.APPEND);
+
+        try (ResultStore store = open()) {
+            assertEquals(length, Files.size(directory.resolve("store.dat")));
+            assertEquals("1,2,3", store.get("a"));
+            assertEquals("4,5,6", store.get("b"));
+            assertNull(store.get("c"));
+            store.put("c", "7,8,9");
+        }
+        try (ResultStore store = open()) {
+            assertEquals("4,5,6", store.get("b"));
+            assertEquals("7,8,9", store.get("c"));
+        }
+    }
+
+    @Test
+    void indexesTheRecordsMissingFromTheIndex() throws IOException {
+        try (ResultStore store = open()) {
+            store.put("a", "1,2,3");
+            store.put("b", "4,5,6");
+            store.put("c", "7,8,9");
+        }
+        // a crash between the data and the index writes of the last two records
+        Path index = directory.resolve("store.idx");
+        List<String> lines = Files.readAllLines(index);
+        Files.write(index, lines.subList(0, 1));
+
+        try (ResultStore store = open()) {
+            assertEquals("1,2,3", store.get("a"));
+            assertEquals("4,5,6", store.get("b"));
+            assertEquals("7,8,9", store.get("c"));
+        }
+        try (ResultStore store = open()) {
+            assertEquals("7,8,9", store.get("c"));
+        }
+    }
+
+    @Test
+    void startsOverFromAnIndexAheadOfTheData() throws IOException {
+        try (ResultStore store = open()) {
+            store.put("a", "1,2,3");
+            store.put("b", "4,5,6");
+        }
+        // the data file lost its last record, e.g. restored from an older copy
+        Path data = directory.resolve("store.dat");
+        byte[] bytes = Files.readAllBytes(data);
+        Files.write(data, new String(bytes, StandardCharsets.UTF_8).substring(0, "a\t1,2,3\n".length())
+                .getBytes(StandardCharsets.UTF_8));
+
+        try (ResultStore store = open()) {
+            assertEquals("1,2,3", store.get("a"));
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package emvScheduling.data;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConflictPairGeneratorTest {
+
+    /**
+     * the generator of the original code, strings and all, that version 1 must reproduce
+     */
+    private static long[] originalPairs(int randomSeed, int processCount, int conflictPercentage) {
+        Random random = new Random(randomSeed);
+        List<Long> conflictPairs = new ArrayList<>();
+        Set<String> uniquePairs = new HashSet<>();
+        int totalPairs = processCount * (processCount - 1) / 2;
+        int requiredConflicts = totalPairs * conflictPercentage / 100;
+        while (uniquePairs.size() < requiredConflicts) {
+            int processA = random.nextInt(processCount);
+            int processB = random.nextInt(processCount);
+            if (processA != processB) {
+                int minProcess = Math.min(processA, processB);
+                int maxProcess = Math.max(processA, processB);
+                if (uniquePairs.add(minProcess + "-" + maxProcess)) {
+                    conflictPairs.add(ConflictPairGenerator.pack(minProcess, maxProcess));
+                }
+            }
+        }
+        Collections.sort(conflictPairs);
+        return conflictPairs.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    @Test
+    void version1ReproducesTheOriginalPairs() {
+        for (int randomSeed : new int[]{0, 1, 42, 12345}) {
+            for (int processCount : new int[]{2, 10, 57, 200}) {
+                for (int conflictPercentage : new int[]{0, 5, 30, 75, 100}) {
+                    assertArrayEquals(originalPairs(randomSeed, processCount, conflictPercentage),
+                            ConflictPairGenerator.generate(1, randomSeed, processCount, conflictPercentage),
+                            "seed " + randomSeed + ", " + processCount + " processes, " + conflictPercentage + "%");
+                }
+            }
+        }
+    }
+
+    @Test
+    void version2GeneratesDistinctSortedPairsOfTheRequiredCount() {
+        for (int processCount : new int[]{2, 10, 57, 200}) {
+            for (int conflictPercentage : new int[]{0, 5, 30, 75, 100}) {
+                long[] keys = ConflictPairGenerator.generate(2, 7, processCount, conflictPercentage);
+                assertEquals(ConflictPairGenerator.requiredConflicts(processCount, conflictPercentage), keys.length);
+                for (int k = 0; k < keys.length; k++) {
+                    int first = ConflictPairGenerator.first(keys[k]);
+                    int second = ConflictPairGenerator.second(keys[k]);
+                    assertTrue(0 <= first && first < second && second < processCount);
+                    if (k > 0) {
+                        assertTrue(keys[k - 1] < keys[k]);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package emvScheduling.solver;
+
+import emvScheduling.domain.IntermediateSolution;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CheckpointTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void roundTripsTheScheduleAcrossVarIntLengths() throws IOException {
+        // one, two, three, four and five byte values, and the boundaries between them
+        int[] computers = {0, 1, 127, 128, 16383, 16384, 2097151, 2097152, Integer.MAX_VALUE};
+        int[] starts = {Integer.MAX_VALUE, 268435455, 268435456, 300, 7, 0, 128, 127, 1};
+        Path file = directory.resolve("schedule.ckpt");
+        Checkpoint.write(file, 0x1234_5678_9abc_def0L, new IntermediateSolution(computers, starts, 4242, 40.5, 1.25),
+                41.0);
+
+        IntermediateSolution read = Checkpoint.read(file, 0x1234_5678_9abc_def0L, computers.length);
+        assertNotNull(read);
+        assertArrayEquals(computers, read.getComputerAssignment());
+        assertArrayEquals(starts, read.getStartTimes());
+        assertEquals(4242, read.getMakespan());
+        // the better of the two bounds is kept
+        assertEquals(41.0, read.getBound());
+        assertEquals(1.25, read.getWallTime());
+    }
+
+    @Test
+    void ignoresTheCheckpointOfAnotherInstance() throws IOException {
+        Path file = directory.resolve("schedule.ckpt");
+        Checkpoint.write(file, 1L, new IntermediateSolution(new int[]{0, 1}, new int[]{0, 0}, 5, 5, 0), 0);
+
+        assertNull(Checkpoint.read(file, 2L, 2));
+        assertNull(Checkpoint.read(file, 1L, 3));
+        assertNotNull(Checkpoint.read(file, 1L, 2));
+    }
+
+    @Test
+    void ignoresAMissingOrCutCheckpoint() throws IOException {
+        Path file = directory.resolve("schedule.ckpt");
+        assertNull(Checkpoint.read(file, 1L, 2));
+
+        Checkpoint.write(file, 1L, new IntermediateSolution(new int[]{0, 300}, new int[]{0, 300}, 600, 0, 0), 0);
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 1));
+        assertNull(Checkpoint.read(file, 1L, 2));
+    }
+
+    @Test
+    void replacesThePreviousCheckpointWithoutLeavingTemporaryFiles() throws IOException {
+        Path file = directory.resolve("schedule.ckpt");
+        Checkpoint.write(file, 1L, new IntermediateSolution(new int[]{0, 1}, new int[]{0, 0}, 9, 0, 0), 0);
+        Checkpoint.write(file, 1L, new IntermediateSolution(new int[]{1, 0}, new int[]{0, 0}, 7, 0, 0), 0);
+
+        assertEquals(7, Checkpoint.read(file, 1L, 2).getMakespan());
+        try (var files = Files.list(directory)) {
+            assertEquals(1, files.count());
+        }
+    }
+}